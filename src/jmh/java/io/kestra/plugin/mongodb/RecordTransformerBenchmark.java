@@ -0,0 +1,72 @@
+package io.kestra.plugin.mongodb;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.mongodb.client.model.InsertOneModel;
+
+/**
+ * Per-record cost of the Load source stage; `copy` is the baseline every other benchmark pays to get a fresh record.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class RecordTransformerBenchmark {
+    private Map<String, Object> record;
+    private RecordTransformer idKeyOnly;
+    private RecordTransformer full;
+
+    @Setup
+    public void setup() {
+        record = Map.of(
+            "id", new ObjectId().toHexString(),
+            "name", "john",
+            "amount", "42.5",
+            "count", "12",
+            "createdAt", "2026-01-01T00:00:00Z",
+            "legacy", "drop me"
+        );
+
+        idKeyOnly = new RecordTransformer("id", true, null, null, null, null);
+        full = new RecordTransformer(
+            "id",
+            true,
+            Map.of("name", "firstName"),
+            List.of("legacy"),
+            Map.of("amount", Load.FieldType.DECIMAL, "count", Load.FieldType.INT, "createdAt", Load.FieldType.DATE),
+            Map.of("source", "benchmark")
+        );
+    }
+
+    @Benchmark
+    public Map<String, Object> copy() {
+        return new HashMap<>(record);
+    }
+
+    @Benchmark
+    public Map<String, Object> idKey() {
+        return idKeyOnly.apply(new HashMap<>(record));
+    }
+
+    @Benchmark
+    public Map<String, Object> allTransformations() {
+        return full.apply(new HashMap<>(record));
+    }
+
+    @Benchmark
+    public InsertOneModel<Document> writeModel() {
+        return new InsertOneModel<>(new Document(full.apply(new HashMap<>(record))));
+    }
+}
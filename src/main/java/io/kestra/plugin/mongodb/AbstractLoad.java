@@ -3,21 +3,37 @@ package io.kestra.plugin.mongodb;
 import java.io.BufferedInputStream;
 import java.io.InputStream;
 import java.net.URI;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+import java.util.function.UnaryOperator;
 
+import org.bson.BsonBoolean;
+import org.bson.BsonDocument;
 import org.bson.conversions.Bson;
 import org.slf4j.Logger;
 
+import com.mongodb.MongoException;
+import com.mongodb.MongoNamespace;
 import com.mongodb.bulk.BulkWriteResult;
 import com.mongodb.client.MongoClient;
 import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoDatabase;
 import com.mongodb.client.model.WriteModel;
 
 import io.kestra.core.models.annotations.PluginProperty;
 import io.kestra.core.models.executions.metrics.Counter;
+import io.kestra.core.models.executions.metrics.Timer;
 import io.kestra.core.models.property.Property;
 import io.kestra.core.models.tasks.RunnableTask;
 import io.kestra.core.runners.RunContext;
@@ -28,6 +44,9 @@ import jakarta.validation.constraints.NotNull;
 import lombok.*;
 import lombok.experimental.SuperBuilder;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
 
 @SuperBuilder
 @ToString
@@ -51,38 +70,362 @@ public abstract class AbstractLoad extends AbstractTask implements RunnableTask<
     @PluginProperty(group = "execution")
     private Property<Integer> chunk = Property.ofValue(1000);
 
+    @Schema(
+        title = "Sort key",
+        description = "Dotted path (e.g. `_id` or the shard key) the records are sorted on before batching, so each bulk request writes a contiguous key range, " +
+            "mostly on one shard. Sorted runs of `sortBufferSize` records are spilled to the worker temp directory and merged; records sharing a key keep their file order. " +
+            "Only insert and replace operations can be sorted. Has no locality benefit on hashed shard keys."
+    )
+    @PluginProperty(group = "execution")
+    private Property<String> sortKey;
+
+    @Schema(
+        title = "Sort buffer size",
+        description = "Number of records sorted in memory before a run is spilled to disk with `sortKey`; defaults to 100000."
+    )
+    @Builder.Default
+    @PluginProperty(group = "execution")
+    private Property<Integer> sortBufferSize = Property.ofValue(100000);
+
+    @Schema(
+        title = "Shard-aware routing",
+        description = "For sharded collections, reads the chunk map from the config database, buckets operations by owning shard and sends per-shard batches concurrently, " +
+            "so mongos never splits a batch nor waits on the slowest shard. The chunk map is refreshed when a shard answers StaleConfig. " +
+            "Operations whose shard key can't be resolved go to a separate lane. Takes precedence over `lanes`; hashed shard keys are not supported."
+    )
+    @Builder.Default
+    @PluginProperty(group = "execution")
+    private Property<Boolean> shardAware = Property.ofValue(false);
+
+    @Schema(
+        title = "Pre-split chunks",
+        description = "For an empty collection sharded on a ranged key, reads the source once to sample the shard key distribution, splits the collection " +
+            "at this number of quantiles and moves the chunks round-robin across all shards before writing, so every shard takes writes from the start. " +
+            "Skipped with a warning when the collection is not sharded, not empty, or sharded on a hashed key (use `numInitialChunks` when sharding it instead)."
+    )
+    @PluginProperty(group = "execution")
+    private Property<Integer> preSplitChunks;
+
+    @Schema(
+        title = "Index strategy",
+        description = "KEEP (default) maintains the secondary indexes on every insert. DEFER captures the secondary index specs, drops them, loads, " +
+            "then rebuilds them all in one createIndexes command, which is much faster for large loads; readers get no index support in between. " +
+            "Unique indexes are kept in place so their constraint still applies. If the load fails, the original indexes are restored; " +
+            "if the rebuild fails, the indexes that can be are restored and the task fails listing the missing ones. Only applies to `collection`."
+    )
+    @Builder.Default
+    @PluginProperty(group = "execution")
+    private Property<IndexStrategy> indexStrategy = Property.ofValue(IndexStrategy.KEEP);
+
     abstract protected Flux<WriteModel<Bson>> source(RunContext runContext, InputStream inputStream) throws Exception;
 
+    /**
+     * Optional stage applied on each chunk right before it's sent, e.g. to drop writes that would not change anything.
+     * Called once per run, so properties should be rendered here and not in the returned function.
+     */
+    protected UnaryOperator<List<WriteModel<Bson>>> chunkFilter(RunContext runContext, MongoCollection<Bson> collection) throws Exception {
+        return null;
+    }
+
+    /**
+     * Optional routing of write models to concurrent lanes; models of the same lane are written in source order.
+     */
+    protected Lanes lanes(RunContext runContext) throws Exception {
+        return null;
+    }
+
+    /**
+     * @param names optional lane names; when set, per-lane records, requests and throughput are reported as metrics.
+     */
+    protected record Lanes(int count, ToIntFunction<WriteModel<Bson>> router, List<String> names) {
+        public Lanes(int count, ToIntFunction<WriteModel<Bson>> router) {
+            this(count, router, null);
+        }
+    }
+
+    /**
+     * Optional routing of write models to other collections of the same database, taking precedence over lanes.
+     * Models are buffered per collection, at most {@code maxBuffered} in total; batches of a collection are written in order,
+     * different collections concurrently.
+     * Models routed to null go to the task collection and are counted as unrouted.
+     */
+    protected Targets targets(RunContext runContext) throws Exception {
+        return null;
+    }
+
+    protected record Targets(Function<WriteModel<Bson>, String> router, int maxBuffered, int parallelism) {
+    }
+
     @Override
     public Output run(RunContext runContext) throws Exception {
+        try (MongoClient client = this.connection.client(runContext)) {
+            MongoCollection<Bson> collection = this.collection(runContext, client);
+
+            Optional<Integer> preSplitChunks = runContext.render(this.preSplitChunks).as(Integer.class);
+            if (preSplitChunks.isPresent()) {
+                this.preSplit(runContext, client, collection, preSplitChunks.get());
+            }
+
+            if (runContext.render(this.indexStrategy).as(IndexStrategy.class).orElseThrow() == IndexStrategy.DEFER) {
+                return this.deferIndexes(runContext, client, collection, () -> this.load(runContext, client, collection));
+            }
+
+            return this.load(runContext, client, collection);
+        }
+    }
+
+    private void preSplit(RunContext runContext, MongoClient client, MongoCollection<Bson> collection, int chunks) throws Exception {
         Logger logger = runContext.logger();
+        MongoNamespace namespace = collection.getNamespace();
+        BsonDocument shardKey = ShardRouter.shardKey(client, namespace);
+
+        if (shardKey == null || ShardRouter.isHashed(shardKey) || collection.estimatedDocumentCount() > 0) {
+            logger.warn("{} is not an empty collection sharded on a ranged key, skipping pre-split", namespace);
+            return;
+        }
+
+        // reservoir sample of the source shard keys, large enough for stable quantiles
+        List<String> fields = new ArrayList<>(shardKey.keySet());
+        int size = chunks * 100;
+        List<BsonDocument> sample = new ArrayList<>(size);
+        Random random = new Random();
+        long seen = 0;
+
         URI from = new URI(runContext.render(this.from).as(String.class).orElseThrow());
+        try (InputStream inputStream = new BufferedInputStream(runContext.storage().getFile(from), FileSerde.BUFFER_SIZE)) {
+            for (WriteModel<Bson> model : this.source(runContext, inputStream).toIterable()) {
+                BsonDocument key = ShardRouter.key(model, fields);
+                if (key == null) {
+                    continue;
+                }
 
-        try (
-            MongoClient client = this.connection.client(runContext);
-            InputStream inputStream = new BufferedInputStream(runContext.storage().getFile(from), FileSerde.BUFFER_SIZE)
-        ) {
-            MongoCollection<Bson> collection = this.collection(runContext, client);
+                seen++;
+                if (sample.size() < size) {
+                    sample.add(key);
+                } else {
+                    long index = random.nextLong(seen);
+                    if (index < size) {
+                        sample.set((int) index, key);
+                    }
+                }
+            }
+        }
+
+        sample.sort(ShardRouter::compareKeys);
+        List<BsonDocument> points = new ArrayList<>();
+        for (int i = 1; i < chunks && !sample.isEmpty(); i++) {
+            BsonDocument point = sample.get(i * sample.size() / chunks);
+
+            // duplicated keys would give empty chunks, split points must be strictly increasing
+            if (points.isEmpty() || ShardRouter.compareKeys(points.getLast(), point) < 0) {
+                points.add(point);
+            }
+        }
+
+        ShardRouter.split(client, namespace, points);
+        logger.info("Pre-split {} into {} chunks from a sample of {} keys", namespace, points.size() + 1, sample.size());
+    }
+
+    private Output deferIndexes(RunContext runContext, MongoClient client, MongoCollection<Bson> collection, Callable<Output> load) throws Exception {
+        // unique indexes stay in place: without them the load could write duplicates their constraint would have rejected
+        List<BsonDocument> indexes = MongoDbService.indexSpecs(collection).stream()
+            .filter(index -> !index.getBoolean("unique", BsonBoolean.FALSE).getValue())
+            .toList();
+        if (indexes.isEmpty()) {
+            return load.call();
+        }
+
+        MongoDatabase database = client.getDatabase(collection.getNamespace().getDatabaseName());
+        runContext.logger().info("Dropping {} indexes of {} until the load is done", indexes.size(), collection.getNamespace());
+        indexes.forEach(index -> collection.dropIndex(index.getString("name").getValue()));
+
+        Output output;
+        try {
+            output = load.call();
+        } catch (Exception e) {
+            runContext.logger().warn("Load failed, restoring {} indexes of {}", indexes.size(), collection.getNamespace());
+            MongoDbService.createIndexes(database, collection.getNamespace().getCollectionName(), indexes);
+            throw e;
+        }
 
+        try {
+            this.buildIndexes(runContext, database, collection.getNamespace().getCollectionName(), collection.getNamespace(), indexes);
+        } catch (MongoException e) {
+            // a single createIndexes builds nothing when one index fails, so the others are restored one by one
+            List<String> missing = new ArrayList<>();
+            for (BsonDocument index : indexes) {
+                try {
+                    MongoDbService.createIndexes(database, collection.getNamespace().getCollectionName(), List.of(index));
+                } catch (MongoException indexException) {
+                    missing.add(index.toJson());
+                }
+            }
+
+            throw new IllegalStateException(
+                "Loaded " + collection.getNamespace() + " but failed to rebuild its deferred indexes, missing: " + String.join(", ", missing),
+                e
+            );
+        }
+
+        return output;
+    }
+
+    /**
+     * Build secondary indexes on a loaded collection and report the time spent under the target namespace,
+     * which differs from the built collection when loading through a staging collection.
+     */
+    protected void buildIndexes(RunContext runContext, MongoDatabase database, String collection, MongoNamespace namespace, List<BsonDocument> indexes) {
+        long start = System.nanoTime();
+        MongoDbService.createIndexes(database, collection, indexes);
+
+        runContext.metric(
+            Timer.of(
+                "index.build.duration", Duration.ofNanos(System.nanoTime() - start),
+                "database", namespace.getDatabaseName(),
+                "collection", namespace.getCollectionName()
+            )
+        );
+    }
+
+    /**
+     * Stream the source file into the given collection, which subclasses may point to another collection than the task one.
+     */
+    protected Output load(RunContext runContext, MongoClient client, MongoCollection<Bson> collection) throws Exception {
+        Logger logger = runContext.logger();
+        URI from = new URI(runContext.render(this.from).as(String.class).orElseThrow());
+
+        try (InputStream inputStream = new BufferedInputStream(runContext.storage().getFile(from), FileSerde.BUFFER_SIZE)) {
             AtomicLong count = new AtomicLong();
             AtomicInteger matchedCount = new AtomicInteger();
             AtomicInteger insertedCount = new AtomicInteger();
             AtomicInteger modifiedCount = new AtomicInteger();
             AtomicInteger deletedCount = new AtomicInteger();
+            AtomicInteger skippedCount = new AtomicInteger();
 
             var renderedChunk = runContext.render(this.chunk).as(Integer.class).orElse(null);
-            Flux<BulkWriteResult> flowable = this.source(runContext, inputStream)
+            UnaryOperator<List<WriteModel<Bson>>> chunkFilter = this.chunkFilter(runContext, collection);
+            Lanes lanes = this.lanes(runContext);
+            Targets targets = this.targets(runContext);
+            Map<String, AtomicLong> targetCounts = new ConcurrentHashMap<>();
+            AtomicLong unroutedCount = new AtomicLong();
+
+            Flux<WriteModel<Bson>> source = this.source(runContext, inputStream)
                 .doOnNext(docWriteRequest ->
                 {
                     count.incrementAndGet();
-                })
+                });
+
+            Optional<String> sortKey = runContext.render(this.sortKey).as(String.class);
+            if (sortKey.isPresent()) {
+                source = new ExternalSorter(
+                    sortKey.get(),
+                    runContext.render(this.sortBufferSize).as(Integer.class).orElseThrow(),
+                    collection.getCodecRegistry(),
+                    () -> runContext.workingDir().createTempFile(".bson")
+                ).sort(source);
+            }
+
+            Function<List<WriteModel<Bson>>, BulkWriteResult> bulkWrite = collection::bulkWrite;
+            Map<String, LaneStats> laneStats = new ConcurrentHashMap<>();
+            if (targets == null && runContext.render(this.shardAware).as(Boolean.class).orElseThrow()) {
+                ShardRouter shards = ShardRouter.of(client, collection.getNamespace());
+
+                if (shards == null) {
+                    logger.warn("{} is not sharded, shard-aware routing is disabled", collection.getNamespace());
+                } else {
+                    List<String> names = new ArrayList<>(shards.shards());
+                    names.add("unrouted");
+
+                    lanes = new Lanes(shards.lanes(), shards::lane, names);
+                    bulkWrite = shards.writer(collection);
+                    logger.info("Routing writes to {} across {} shards", collection.getNamespace(), shards.shards().size());
+                }
+            }
+
+            Function<List<WriteModel<Bson>>, BulkWriteResult> writeBatch = bulkWrite;
+            Function<Flux<WriteModel<Bson>>, Flux<List<WriteModel<Bson>>>> batcher = models -> models
                 .buffer(renderedChunk, renderedChunk)
-                .map(indexRequests ->
+                .<List<WriteModel<Bson>>>map(indexRequests ->
                 {
                     List<WriteModel<Bson>> bulkOperations = new ArrayList<>(indexRequests);
 
-                    return collection.bulkWrite(bulkOperations);
+                    if (chunkFilter != null) {
+                        bulkOperations = chunkFilter.apply(bulkOperations);
+                        skippedCount.addAndGet(indexRequests.size() - bulkOperations.size());
+                    }
+
+                    return bulkOperations;
                 })
+                .filter(bulkOperations -> !bulkOperations.isEmpty());
+
+            Flux<BulkWriteResult> flowable;
+            if (targets != null) {
+                MongoDatabase database = client.getDatabase(collection.getNamespace().getDatabaseName());
+                Map<String, MongoCollection<Bson>> collections = new ConcurrentHashMap<>();
+                Map<String, UnaryOperator<List<WriteModel<Bson>>>> chunkFilters = new ConcurrentHashMap<>();
+                TargetBuffer buffer = new TargetBuffer(renderedChunk, targets.maxBuffered());
+                Scheduler writers = Schedulers.newBoundedElastic(targets.parallelism(), Integer.MAX_VALUE, "mongodb-targets");
+
+                String fallback = collection.getNamespace().getCollectionName();
+
+                flowable = source
+                    .concatMapIterable(model -> {
+                        String target = targets.router().apply(model);
+                        if (target == null && unroutedCount.getAndIncrement() == 0) {
+                            logger.warn("Records are missing a field of the collection template and are written to '{}', first one: {}", fallback, model);
+                        }
+
+                        return buffer.add(target == null ? fallback : target, model);
+                    })
+                    .concatWith(Flux.defer(() -> Flux.fromIterable(buffer.drain())))
+                    // batches of one collection are written in order, so the last write of a key wins and the chunk filter sees
+                    // the previous batches; collections are written concurrently on at most `parallelism` threads
+                    .groupBy(Map.Entry::getKey)
+                    .flatMap(
+                        group -> group.concatMap(batch -> Mono.fromCallable(() ->
+                        {
+                            MongoCollection<Bson> target = collections.computeIfAbsent(batch.getKey(), name -> database.getCollection(name, Bson.class));
+                            targetCounts.computeIfAbsent(batch.getKey(), name -> new AtomicLong()).addAndGet(batch.getValue().size());
+
+                            List<WriteModel<Bson>> bulkOperations = batch.getValue();
+                            if (chunkFilter != null) {
+                                UnaryOperator<List<WriteModel<Bson>>> targetFilter = chunkFilters.computeIfAbsent(
+                                    batch.getKey(),
+                                    name -> this.targetChunkFilter(runContext, target)
+                                );
+
+                                bulkOperations = targetFilter.apply(bulkOperations);
+                                skippedCount.addAndGet(batch.getValue().size() - bulkOperations.size());
+                            }
+
+                            // an empty result completes the Mono without emitting
+                            return bulkOperations.isEmpty() ? null : target.bulkWrite(bulkOperations);
+                        }).subscribeOn(writers)),
+                        Integer.MAX_VALUE
+                    )
+                    .doFinally(signal -> writers.dispose());
+            } else if (lanes == null || lanes.count() <= 1) {
+                flowable = batcher.apply(source).map(writeBatch);
+            } else {
+                // each lane keeps the source order and writes on its own thread, so lanes run concurrently
+                Lanes routing = lanes;
+                flowable = source
+                    .groupBy(model -> Math.floorMod(routing.router().applyAsInt(model), routing.count()))
+                    .flatMap(
+                        lane -> {
+                            Flux<List<WriteModel<Bson>>> batches = batcher.apply(lane.publishOn(Schedulers.boundedElastic()));
+                            if (routing.names() == null) {
+                                return batches.map(writeBatch);
+                            }
+
+                            LaneStats stats = laneStats.computeIfAbsent(routing.names().get(lane.key()), name -> new LaneStats());
+                            return batches.map(batch -> stats.write(batch, writeBatch));
+                        },
+                        routing.count()
+                    );
+            }
+
+            flowable = flowable
                 .doOnNext(bulkItemResponse ->
                 {
                     matchedCount.addAndGet(bulkItemResponse.getMatchedCount());
@@ -108,6 +451,46 @@ public abstract class AbstractLoad extends AbstractTask implements RunnableTask<
                 )
             );
 
+            laneStats.forEach((name, stats) -> {
+                String[] tags = new String[]{
+                    "database", collection.getNamespace().getDatabaseName(),
+                    "collection", collection.getNamespace().getCollectionName(),
+                    "shard", name
+                };
+
+                runContext.metric(Counter.of("shard.records", stats.records.get(), tags));
+                runContext.metric(Counter.of("shard.requests", stats.requests.get(), tags));
+                runContext.metric(Counter.of("shard.records.per.second", stats.recordsPerSecond(), tags));
+            });
+
+            targetCounts.forEach((name, records) -> runContext.metric(
+                Counter.of(
+                    "records.collection", records.get(),
+                    "database", collection.getNamespace().getDatabaseName(),
+                    "collection", name
+                )
+            ));
+
+            if (targets != null) {
+                runContext.metric(
+                    Counter.of(
+                        "records.unrouted", unroutedCount.get(),
+                        "database", collection.getNamespace().getDatabaseName(),
+                        "collection", collection.getNamespace().getCollectionName()
+                    )
+                );
+            }
+
+            if (chunkFilter != null) {
+                runContext.metric(
+                    Counter.of(
+                        "records.skipped", skippedCount.get(),
+                        "database", collection.getNamespace().getDatabaseName(),
+                        "collection", collection.getNamespace().getCollectionName()
+                    )
+                );
+            }
+
             logger.info(
                 "Successfully sent {} requests for {} records",
                 requestCount,
@@ -120,10 +503,98 @@ public abstract class AbstractLoad extends AbstractTask implements RunnableTask<
                 .insertedCount(insertedCount.get())
                 .modifiedCount(modifiedCount.get())
                 .deletedCount(deletedCount.get())
+                .skippedCount(skippedCount.get())
                 .build();
         }
     }
 
+    private UnaryOperator<List<WriteModel<Bson>>> targetChunkFilter(RunContext runContext, MongoCollection<Bson> collection) {
+        try {
+            return this.chunkFilter(runContext, collection);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Per-collection batches sharing a bounded number of buffered models; when the bound is reached,
+     * the largest batch is flushed early so that memory does not grow with the number of collections.
+     */
+    static class TargetBuffer {
+        private final int chunk;
+        private final int maxBuffered;
+        private final Map<String, List<WriteModel<Bson>>> batches = new LinkedHashMap<>();
+        private int buffered = 0;
+
+        TargetBuffer(int chunk, int maxBuffered) {
+            this.chunk = chunk;
+            this.maxBuffered = Math.max(maxBuffered, 1);
+        }
+
+        List<Map.Entry<String, List<WriteModel<Bson>>>> add(String target, WriteModel<Bson> model) {
+            List<WriteModel<Bson>> batch = batches.computeIfAbsent(target, k -> new ArrayList<>());
+            batch.add(model);
+            buffered++;
+
+            if (batch.size() >= chunk) {
+                return List.of(this.take(target));
+            }
+
+            if (buffered >= maxBuffered) {
+                String largest = batches.entrySet().stream()
+                    .max(Map.Entry.comparingByValue((a, b) -> Integer.compare(a.size(), b.size())))
+                    .orElseThrow()
+                    .getKey();
+
+                return List.of(this.take(largest));
+            }
+
+            return List.of();
+        }
+
+        List<Map.Entry<String, List<WriteModel<Bson>>>> drain() {
+            List<Map.Entry<String, List<WriteModel<Bson>>>> result = new ArrayList<>();
+            for (String target : List.copyOf(batches.keySet())) {
+                result.add(this.take(target));
+            }
+
+            return result;
+        }
+
+        private Map.Entry<String, List<WriteModel<Bson>>> take(String target) {
+            List<WriteModel<Bson>> batch = batches.remove(target);
+            buffered -= batch.size();
+
+            return Map.entry(target, batch);
+        }
+    }
+
+    private static class LaneStats {
+        private final AtomicLong records = new AtomicLong();
+        private final AtomicLong requests = new AtomicLong();
+        private final AtomicLong nanos = new AtomicLong();
+
+        BulkWriteResult write(List<WriteModel<Bson>> batch, Function<List<WriteModel<Bson>>, BulkWriteResult> bulkWrite) {
+            long start = System.nanoTime();
+            BulkWriteResult result = bulkWrite.apply(batch);
+
+            nanos.addAndGet(System.nanoTime() - start);
+            records.addAndGet(batch.size());
+            requests.incrementAndGet();
+
+            return result;
+        }
+
+        long recordsPerSecond() {
+            return (long) (records.get() / Math.max(nanos.get() / 1_000_000_000D, 0.001));
+        }
+    }
+
+    public enum IndexStrategy {
+        KEEP,
+        DEFER
+    }
+
     @Builder
     @Getter
     public static class Output implements io.kestra.core.models.tasks.Output {
@@ -160,5 +631,12 @@ public abstract class AbstractLoad extends AbstractTask implements RunnableTask<
         )
         @Builder.Default
         private int modifiedCount = 0;
+
+        @Schema(
+            title = "Skipped records",
+            description = "Records not sent because the stored document was already up to date."
+        )
+        @Builder.Default
+        private int skippedCount = 0;
     }
 }
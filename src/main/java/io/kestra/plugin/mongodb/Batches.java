@@ -0,0 +1,240 @@
+package io.kestra.plugin.mongodb;
+
+import java.io.BufferedInputStream;
+import java.io.InputStream;
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import org.bson.BsonBoolean;
+import org.bson.BsonDocument;
+import org.bson.BsonInt32;
+import org.bson.BsonInt64;
+import org.bson.BsonString;
+import org.bson.BsonValue;
+import org.bson.conversions.Bson;
+import org.slf4j.Logger;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.Sorts;
+
+import io.kestra.core.runners.RunContext;
+import io.kestra.core.serializers.FileSerde;
+
+import reactor.core.publisher.Flux;
+
+import static io.kestra.core.utils.Rethrow.throwConsumer;
+import static io.kestra.core.utils.Rethrow.throwFunction;
+
+/**
+ * Walk the `_id`s matching a filter in index order, page by page, for tasks that split a large write into small ones,
+ * with the throttling between pages that keeps secondaries from falling behind.
+ * Also reads the key files that drive writes by key list, so a batch of keys becomes one `$in` statement.
+ */
+final class Batches {
+    private static final Duration LAG_POLL_INTERVAL = Duration.ofSeconds(1);
+    static final Duration MAX_LAG_WAIT = Duration.ofMinutes(10);
+
+    private Batches() {
+    }
+
+    /**
+     * @param after exclusive `_id` lower bound, e.g. a checkpoint of a previous run, or null to start from the first document.
+     */
+    static Iterator<List<BsonValue>> ids(MongoCollection<Bson> collection, BsonDocument filter, BsonValue after, int size) {
+        return new Iterator<>() {
+            private BsonValue last = after;
+            private List<BsonValue> next;
+
+            @Override
+            public boolean hasNext() {
+                if (next == null) {
+                    Bson pageFilter = last == null ? filter : Filters.and(filter, Filters.gt("_id", last));
+
+                    next = collection.find(pageFilter, BsonDocument.class)
+                        .projection(Projections.include("_id"))
+                        .sort(Sorts.ascending("_id"))
+                        .limit(size)
+                        .map(document -> document.get("_id"))
+                        .into(new ArrayList<>());
+
+                    if (!next.isEmpty()) {
+                        last = next.getLast();
+                    }
+                }
+
+                return !next.isEmpty();
+            }
+
+            @Override
+            public List<BsonValue> next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+
+                List<BsonValue> page = next;
+                next = null;
+
+                return page;
+            }
+        };
+    }
+
+    /**
+     * `_id` to resume after from the checkpoint stored under {@code stateKey}, or null when there is none or it was
+     * stored for another query, since its position means nothing for the documents selected by this one.
+     *
+     * @param query rendered filter and any other input selecting or changing the documents, compared as a whole
+     */
+    static BsonValue resumeAfter(RunContext runContext, String stateKey, BsonDocument query, Logger logger) throws Exception {
+        BsonDocument checkpoint = MongoDbService.readState(runContext, stateKey);
+        if (!checkpoint.containsKey("_id")) {
+            return null;
+        }
+
+        if (!query.equals(checkpoint.get("query"))) {
+            logger.warn("Ignoring the checkpoint after _id {} stored for another query {}", checkpoint.get("_id"), checkpoint.get("query"));
+
+            return null;
+        }
+
+        logger.info("Resuming after _id {}", checkpoint.get("_id"));
+
+        return checkpoint.get("_id");
+    }
+
+    static void checkpoint(RunContext runContext, String stateKey, BsonDocument query, BsonValue last) throws Exception {
+        MongoDbService.writeState(runContext, stateKey, new BsonDocument("_id", last).append("query", query), null);
+    }
+
+    /**
+     * Sleep for the fixed delay, then until the replication lag is back under the given maximum, failing after
+     * {@link #MAX_LAG_WAIT} so a secondary that doesn't catch up doesn't hang the task.
+     */
+    static void pause(MongoClient client, Duration delay, Duration maxReplicationLag, Logger logger) throws InterruptedException {
+        if (delay != null && !delay.isZero()) {
+            Thread.sleep(delay);
+        }
+
+        if (maxReplicationLag == null) {
+            return;
+        }
+
+        long started = System.nanoTime();
+        Duration lag;
+        while ((lag = replicationLag(client)).compareTo(maxReplicationLag) > 0) {
+            if (Duration.ofNanos(System.nanoTime() - started).compareTo(MAX_LAG_WAIT) > 0) {
+                throw new IllegalStateException("Replication lag " + lag + " stayed above " + maxReplicationLag + " for more than " + MAX_LAG_WAIT);
+            }
+
+            logger.debug("Replication lag {} is above {}, waiting", lag, maxReplicationLag);
+            Thread.sleep(LAG_POLL_INTERVAL);
+        }
+    }
+
+    /**
+     * Lag of the slowest secondary behind the primary; zero on a standalone server.
+     *
+     * @throws IllegalArgumentException through a mongos, where the lag of the shards' replica sets can't be read
+     */
+    static Duration replicationLag(MongoClient client) {
+        MongoDatabase admin = client.getDatabase("admin");
+        BsonDocument hello = admin.runCommand(new BsonDocument("hello", new BsonInt32(1)), BsonDocument.class);
+
+        if ("isdbgrid".equals(hello.getString("msg", new BsonString("")).getValue())) {
+            throw new IllegalArgumentException("maxReplicationLag isn't supported on a sharded cluster, connect to the replica set of a shard instead");
+        }
+
+        if (!hello.containsKey("setName")) {
+            return Duration.ZERO;
+        }
+
+        return replicationLag(
+            admin.runCommand(new BsonDocument("replSetGetStatus", new BsonInt32(1)), BsonDocument.class),
+            admin.runCommand(new BsonDocument("replSetGetConfig", new BsonInt32(1)), BsonDocument.class).getDocument("config")
+        );
+    }
+
+    /**
+     * Lag of the slowest healthy secondary from a `replSetGetStatus` result. Hidden and delayed members of the
+     * `replSetGetConfig` configuration are left out: they are behind on purpose, or not read from.
+     */
+    static Duration replicationLag(BsonDocument status, BsonDocument config) {
+        Set<BsonValue> ignored = new HashSet<>();
+        for (BsonValue value : config.getArray("members")) {
+            BsonDocument member = value.asDocument();
+            boolean hidden = member.getBoolean("hidden", BsonBoolean.FALSE).getValue();
+            // slaveDelay before MongoDB 5.0
+            long delay = member.getNumber("secondaryDelaySecs", member.getNumber("slaveDelay", new BsonInt64(0))).longValue();
+
+            if (hidden || delay > 0) {
+                ignored.add(MongoDbService.joinKey(member.get("_id")));
+            }
+        }
+
+        Long primary = null;
+        long slowest = Long.MAX_VALUE;
+        for (BsonValue value : status.getArray("members")) {
+            BsonDocument member = value.asDocument();
+            String state = member.getString("stateStr", new BsonString("")).getValue();
+
+            // arbiters have no optime, down or recovering members have a stale one
+            if (!member.isDateTime("optimeDate") || member.getNumber("health", new BsonInt32(0)).intValue() != 1) {
+                continue;
+            }
+
+            if ("PRIMARY".equals(state)) {
+                primary = member.getDateTime("optimeDate").getValue();
+            } else if ("SECONDARY".equals(state) && !ignored.contains(MongoDbService.joinKey(member.get("_id")))) {
+                slowest = Math.min(slowest, member.getDateTime("optimeDate").getValue());
+            }
+        }
+
+        return primary == null || slowest == Long.MAX_VALUE ? Duration.ZERO : Duration.ofMillis(Math.max(primary - slowest, 0));
+    }
+
+    /**
+     * Read a storage file of keys, either plain values or records holding the key field, the other fields of a record being its patch.
+     *
+     * @param keyType optional type the keys are coerced to, e.g. OBJECT_ID for keys exported as hex strings.
+     */
+    static Flux<Keyed> keys(RunContext runContext, String from, String keyField, Load.FieldType keyType) {
+        return Flux.using(
+            () -> new BufferedInputStream(runContext.storage().getFile(URI.create(from)), FileSerde.BUFFER_SIZE),
+            throwFunction(inputStream -> FileSerde.readAll(inputStream).map(row -> {
+                Object key;
+                Map<String, Object> patch;
+
+                if (row instanceof Map<?, ?> map) {
+                    patch = new LinkedHashMap<>();
+                    map.forEach((field, value) -> patch.put(field.toString(), value));
+                    key = patch.remove(keyField);
+
+                    if (key == null) {
+                        throw new IllegalArgumentException("Missing key field '" + keyField + "' in record " + row);
+                    }
+                } else {
+                    key = row;
+                    patch = Map.of();
+                }
+
+                return new Keyed(keyType == null ? key : RecordTransformer.coerce(key, keyType), patch);
+            })),
+            throwConsumer(InputStream::close)
+        );
+    }
+
+    record Keyed(Object key, Map<String, Object> patch) {
+    }
+}
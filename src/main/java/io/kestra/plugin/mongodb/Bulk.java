@@ -1,27 +1,49 @@
 package io.kestra.plugin.mongodb;
 
+import java.io.BufferedInputStream;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.net.URI;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
 
 import org.bson.BsonDocument;
+import org.bson.BsonInt32;
 import org.bson.BsonValue;
 import org.bson.conversions.Bson;
+import org.slf4j.Logger;
 
+import com.mongodb.MongoNamespace;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.MongoClient;
 import com.mongodb.client.model.*;
+import com.mongodb.client.model.bulk.ClientBulkWriteResult;
+import com.mongodb.client.model.bulk.ClientDeleteManyOptions;
+import com.mongodb.client.model.bulk.ClientDeleteOneOptions;
+import com.mongodb.client.model.bulk.ClientNamespacedWriteModel;
+import com.mongodb.client.model.bulk.ClientReplaceOneOptions;
+import com.mongodb.client.model.bulk.ClientUpdateManyOptions;
+import com.mongodb.client.model.bulk.ClientUpdateOneOptions;
 
 import io.kestra.core.models.annotations.Example;
 import io.kestra.core.models.annotations.Metric;
 import io.kestra.core.models.annotations.Plugin;
+import io.kestra.core.models.annotations.PluginProperty;
 import io.kestra.core.models.executions.metrics.Counter;
+import io.kestra.core.models.executions.metrics.Timer;
+import io.kestra.core.models.property.Property;
 import io.kestra.core.runners.RunContext;
+import io.kestra.core.serializers.FileSerde;
 
 import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
@@ -39,7 +61,9 @@ import static io.kestra.core.utils.Rethrow.throwConsumer;
 @NoArgsConstructor
 @Schema(
     title = "Run MongoDB bulkWrite from NDJSON",
-    description = "Reads newline-delimited bulk operations from internal storage and executes MongoDB bulkWrite. Supports insert/update/delete formats defined in MongoDB Bulk API (https://www.mongodb.com/docs/manual/reference/method/Bulk/). Inherits chunking from AbstractLoad (default 1000 per bulk request)."
+    description = "Reads newline-delimited bulk operations from internal storage and executes MongoDB bulkWrite. Supports insert/update/delete formats defined in MongoDB Bulk API (https://www.mongodb.com/docs/manual/reference/method/Bulk/). Inherits chunking from AbstractLoad (default 1000 per bulk request). " +
+        "Set `lanes` to write independent keys concurrently while keeping the order of operations on each key. " +
+        "With `namespaced`, each line carries its own `namespace` so a single file can write many collections."
 )
 @Plugin(
     examples = {
@@ -65,6 +89,31 @@ import static io.kestra.core.utils.Rethrow.throwConsumer;
                     collection: "my_collection"
                     from: "{{ outputs.make_actions.uri }}"
                 """
+        ),
+        @Example(
+            full = true,
+            title = "Write events to several collections in a single pass over the file.",
+            code = """
+                id: mongodb_bulk_namespaced
+                namespace: company.team
+
+                tasks:
+                  - id: make_actions
+                    type: io.kestra.plugin.core.storage.Write
+                    content: |
+                      { "namespace": "shop.orders", "insertOne" : {"_id": 1, "status": "NEW"}}
+                      { "namespace": "shop.payments", "insertOne" : {"_id": 10, "order": 1}}
+                      { "namespace": "shop.orders", "updateOne" : {"filter": {"_id": 1}, "update": {"$set": {"status": "PAID"}}}}
+
+                  - id: bulk
+                    type: io.kestra.plugin.mongodb.Bulk
+                    connection:
+                      uri: "mongodb://YOUR_HOST:27017"
+                    database: "shop"
+                    collection: "events"
+                    namespaced: true
+                    from: "{{ outputs.make_actions.uri }}"
+                """
         )
     },
     metrics = {
@@ -79,10 +128,199 @@ import static io.kestra.core.utils.Rethrow.throwConsumer;
             type = Counter.TYPE,
             unit = "count",
             description = "Number of bulk requests sent to MongoDB"
+        ),
+        @Metric(
+            name = "index.build.duration",
+            type = Timer.TYPE,
+            description = "Time spent rebuilding the secondary indexes with `indexStrategy: DEFER`"
+        ),
+        @Metric(
+            name = "shard.records",
+            type = Counter.TYPE,
+            unit = "count",
+            description = "Number of records written per shard with `shardAware`"
+        ),
+        @Metric(
+            name = "shard.requests",
+            type = Counter.TYPE,
+            unit = "count",
+            description = "Number of bulk requests sent per shard with `shardAware`"
+        ),
+        @Metric(
+            name = "shard.records.per.second",
+            type = Counter.TYPE,
+            unit = "count",
+            description = "Records written per second of bulkWrite time, per shard with `shardAware`"
         )
     }
 )
 public class Bulk extends AbstractLoad {
+    @Schema(
+        title = "Concurrent lanes",
+        description = "Operations are hashed on `laneKey` into this number of lanes; each lane keeps the file order and runs its own bulkWrite calls concurrently with the others. " +
+            "Operations on the same key always land in the same lane, so per-document ordering is preserved. Defaults to 1 (fully ordered)."
+    )
+    @Builder.Default
+    @PluginProperty(group = "execution")
+    private Property<Integer> lanes = Property.ofValue(1);
+
+    @Schema(
+        title = "Lane key",
+        description = "Dotted path resolved on the inserted document for `insertOne`, and on the filter for other operations; defaults to `_id`. " +
+            "Numerically equal keys of any BSON type and `{$eq: value}` filters share a lane. " +
+            "Operations where it can't be resolved (e.g. `updateMany` on a range, or any other operator expression) all go to the first lane, so only use lanes when such operations don't depend on other keys."
+    )
+    @Builder.Default
+    @PluginProperty(group = "execution")
+    private Property<String> laneKey = Property.ofValue("_id");
+
+    @Schema(
+        title = "Namespaced operations",
+        description = "Each line may carry a `namespace` key, either `database.collection` or a collection name in `database`; lines without it go to `collection`. " +
+            "On MongoDB 8.0+, each chunk is sent in a single client-level bulkWrite across all namespaces, keeping the file order. " +
+            "On older servers, each chunk is split into one ordered bulkWrite per collection, so the order is only kept within a collection. " +
+            "`lanes` are ignored in this mode, and `sortKey`, `shardAware`, `preSplitChunks` and a DEFER `indexStrategy` are rejected as they apply to a single collection."
+    )
+    @Builder.Default
+    @PluginProperty(group = "main")
+    private Property<Boolean> namespaced = Property.ofValue(false);
+
+    @Override
+    public Output run(RunContext runContext) throws Exception {
+        if (!runContext.render(this.namespaced).as(Boolean.class).orElse(false)) {
+            return super.run(runContext);
+        }
+
+        this.checkNamespaced(runContext);
+
+        Logger logger = runContext.logger();
+        URI from = new URI(runContext.render(this.getFrom()).as(String.class).orElseThrow());
+        int chunk = runContext.render(this.getChunk()).as(Integer.class).orElseThrow();
+
+        try (
+            MongoClient client = this.connection.client(runContext);
+            InputStream inputStream = new BufferedInputStream(runContext.storage().getFile(from), FileSerde.BUFFER_SIZE)
+        ) {
+            MongoNamespace defaultNamespace = this.collection(runContext, client).getNamespace();
+            boolean clientBulkWrite = supportsClientBulkWrite(client);
+
+            Map<MongoNamespace, AtomicLong> counts = new LinkedHashMap<>();
+            AtomicInteger matchedCount = new AtomicInteger();
+            AtomicInteger insertedCount = new AtomicInteger();
+            AtomicInteger modifiedCount = new AtomicInteger();
+            AtomicInteger deletedCount = new AtomicInteger();
+            AtomicLong requestCount = new AtomicLong();
+
+            Flux
+                .create(this.namespacedReader(new BufferedReader(new InputStreamReader(inputStream)), defaultNamespace), FluxSink.OverflowStrategy.BUFFER)
+                .doOnNext(operation -> counts.computeIfAbsent(operation.namespace(), k -> new AtomicLong()).incrementAndGet())
+                .buffer(chunk, chunk)
+                .doOnNext(operations -> {
+                    if (clientBulkWrite) {
+                        ClientBulkWriteResult result = client.bulkWrite(operations.stream().map(Namespaced::toClientModel).toList());
+                        requestCount.incrementAndGet();
+
+                        matchedCount.addAndGet((int) result.getMatchedCount());
+                        insertedCount.addAndGet((int) result.getInsertedCount());
+                        modifiedCount.addAndGet((int) result.getModifiedCount());
+                        deletedCount.addAndGet((int) result.getDeletedCount());
+                    } else {
+                        Map<MongoNamespace, List<WriteModel<Bson>>> grouped = new LinkedHashMap<>();
+                        operations.forEach(operation -> grouped.computeIfAbsent(operation.namespace(), k -> new ArrayList<>()).add(operation.model()));
+
+                        grouped.forEach((namespace, models) -> {
+                            BulkWriteResult result = client
+                                .getDatabase(namespace.getDatabaseName())
+                                .getCollection(namespace.getCollectionName(), Bson.class)
+                                .bulkWrite(models);
+                            requestCount.incrementAndGet();
+
+                            matchedCount.addAndGet(result.getMatchedCount());
+                            insertedCount.addAndGet(result.getInsertedCount());
+                            modifiedCount.addAndGet(result.getModifiedCount());
+                            deletedCount.addAndGet(result.getDeletedCount());
+                        });
+                    }
+                })
+                .blockLast();
+
+            long count = counts.values().stream().mapToLong(AtomicLong::get).sum();
+
+            runContext.metric(
+                Counter.of(
+                    "requests.count", requestCount.get(),
+                    "database", defaultNamespace.getDatabaseName(),
+                    "collection", defaultNamespace.getCollectionName()
+                )
+            );
+            counts.forEach((namespace, records) -> runContext.metric(
+                Counter.of(
+                    "records", records.get(),
+                    "database", namespace.getDatabaseName(),
+                    "collection", namespace.getCollectionName()
+                )
+            ));
+
+            logger.info(
+                "Successfully sent {} {} requests for {} records in {} collections",
+                requestCount.get(),
+                clientBulkWrite ? "client bulkWrite" : "collection bulkWrite",
+                count,
+                counts.size()
+            );
+
+            return Output.builder()
+                .size(count)
+                .matchedCount(matchedCount.get())
+                .insertedCount(insertedCount.get())
+                .modifiedCount(modifiedCount.get())
+                .deletedCount(deletedCount.get())
+                .build();
+        }
+    }
+
+    private void checkNamespaced(RunContext runContext) throws Exception {
+        List<String> unsupported = new ArrayList<>();
+
+        if (runContext.render(this.getSortKey()).as(String.class).isPresent()) {
+            unsupported.add("sortKey");
+        }
+        if (runContext.render(this.getShardAware()).as(Boolean.class).orElse(false)) {
+            unsupported.add("shardAware");
+        }
+        if (runContext.render(this.getPreSplitChunks()).as(Integer.class).isPresent()) {
+            unsupported.add("preSplitChunks");
+        }
+        if (runContext.render(this.getIndexStrategy()).as(IndexStrategy.class).orElse(IndexStrategy.KEEP) != IndexStrategy.KEEP) {
+            unsupported.add("indexStrategy");
+        }
+
+        if (!unsupported.isEmpty()) {
+            throw new IllegalArgumentException("'namespaced' can't be combined with " + String.join(", ", unsupported) + ", which apply to a single collection");
+        }
+    }
+
+    @Override
+    protected Lanes lanes(RunContext runContext) throws Exception {
+        int lanes = runContext.render(this.lanes).as(Integer.class).orElse(1);
+        String laneKey = runContext.render(this.laneKey).as(String.class).orElseThrow();
+
+        return new Lanes(lanes, model -> laneHash(MongoDbService.keyOf(model, laneKey)));
+    }
+
+    /**
+     * Hash of a lane key, equal for keys matching the same documents: numbers of any BSON type and `{$eq: value}` hash like the value.
+     * Other operator expressions, and missing keys, go to the first lane.
+     */
+    static int laneHash(BsonValue key) {
+        if (key != null && key.isDocument() && key.asDocument().keySet().stream().anyMatch(field -> field.startsWith("$"))) {
+            BsonDocument operators = key.asDocument();
+            key = operators.size() == 1 && operators.containsKey("$eq") ? operators.get("$eq") : null;
+        }
+
+        return key == null ? 0 : MongoDbService.joinKey(key).hashCode();
+    }
+
     @Override
     protected Flux<WriteModel<Bson>> source(RunContext runContext, InputStream inputStream) throws IOException {
         return Flux
@@ -90,50 +328,137 @@ public class Bulk extends AbstractLoad {
     }
 
     public Consumer<FluxSink<WriteModel<Bson>>> ndJSonReader(BufferedReader input) throws IOException {
+        return throwConsumer(s ->
+        {
+            String row;
+
+            while ((row = input.readLine()) != null) {
+                s.next(this.writeModel(row, BsonDocument.parse(row)));
+            }
+
+            s.complete();
+        });
+    }
+
+    private Consumer<FluxSink<Namespaced>> namespacedReader(BufferedReader input, MongoNamespace defaultNamespace) {
         return throwConsumer(s ->
         {
             String row;
 
             while ((row = input.readLine()) != null) {
                 BsonDocument bsonDocument = BsonDocument.parse(row);
-                Map.Entry<String, BsonValue> operation = bsonDocument.entrySet().iterator().next();
-
-                WriteModel<Bson> docWriteRequest = switch (operation.getKey()) {
-                    case "insertOne" -> new InsertOneModel<>(
-                        operation.getValue().asDocument()
-                    );
-                    case "replaceOne" -> new ReplaceOneModel<>(
-                        operation.getValue().asDocument().get("filter").asDocument(),
-                        operation.getValue().asDocument().get("replacement").asDocument(),
-                        getReplaceOptions(operation.getValue().asDocument())
-                    );
-                    case "updateOne" -> new UpdateOneModel<>(
-                        operation.getValue().asDocument().get("filter").asDocument(),
-                        operation.getValue().asDocument().get("update").asDocument(),
-                        getUpdateOptions(operation.getValue().asDocument())
-                    );
-                    case "updateMany" -> new UpdateManyModel<>(
-                        operation.getValue().asDocument().get("filter").asDocument(),
-                        operation.getValue().asDocument().get("update").asDocument(),
-                        getUpdateOptions(operation.getValue().asDocument())
-                    );
-                    case "deleteOne" -> new DeleteOneModel<>(
-                        operation.getValue().asDocument().get("filter").asDocument()
-                    );
-                    case "deleteMany" -> new DeleteManyModel<>(
-                        operation.getValue().asDocument().get("filter").asDocument()
-                    );
-                    default ->
-                        throw new IllegalArgumentException("Invalid bulk request type on '" + row + "'");
-                };
-
-                s.next(docWriteRequest);
+                BsonValue namespace = bsonDocument.remove("namespace");
+
+                s.next(new Namespaced(namespace(namespace, defaultNamespace), this.writeModel(row, bsonDocument)));
             }
 
             s.complete();
         });
     }
 
+    private WriteModel<Bson> writeModel(String row, BsonDocument bsonDocument) {
+        Map.Entry<String, BsonValue> operation = bsonDocument.entrySet().iterator().next();
+
+        return switch (operation.getKey()) {
+            case "insertOne" -> new InsertOneModel<>(
+                operation.getValue().asDocument()
+            );
+            case "replaceOne" -> new ReplaceOneModel<>(
+                operation.getValue().asDocument().get("filter").asDocument(),
+                operation.getValue().asDocument().get("replacement").asDocument(),
+                getReplaceOptions(operation.getValue().asDocument())
+            );
+            case "updateOne" -> new UpdateOneModel<>(
+                operation.getValue().asDocument().get("filter").asDocument(),
+                operation.getValue().asDocument().get("update").asDocument(),
+                getUpdateOptions(operation.getValue().asDocument())
+            );
+            case "updateMany" -> new UpdateManyModel<>(
+                operation.getValue().asDocument().get("filter").asDocument(),
+                operation.getValue().asDocument().get("update").asDocument(),
+                getUpdateOptions(operation.getValue().asDocument())
+            );
+            case "deleteOne" -> new DeleteOneModel<>(
+                operation.getValue().asDocument().get("filter").asDocument()
+            );
+            case "deleteMany" -> new DeleteManyModel<>(
+                operation.getValue().asDocument().get("filter").asDocument()
+            );
+            default ->
+                throw new IllegalArgumentException("Invalid bulk request type on '" + row + "'");
+        };
+    }
+
+    private static MongoNamespace namespace(BsonValue value, MongoNamespace defaultNamespace) {
+        if (value == null) {
+            return defaultNamespace;
+        }
+
+        String namespace = value.asString().getValue();
+        if (namespace.contains(".")) {
+            return new MongoNamespace(namespace);
+        }
+
+        return new MongoNamespace(defaultNamespace.getDatabaseName(), namespace);
+    }
+
+    /**
+     * Client-level bulkWrite needs MongoDB 8.0+; the server version is checked once per run.
+     */
+    private static boolean supportsClientBulkWrite(MongoClient client) {
+        BsonDocument buildInfo = client.getDatabase("admin").runCommand(new BsonDocument("buildInfo", new BsonInt32(1)), BsonDocument.class);
+
+        return buildInfo.getArray("versionArray").get(0).asNumber().intValue() >= 8;
+    }
+
+    private record Namespaced(MongoNamespace namespace, WriteModel<Bson> model) {
+        /**
+         * Per-operation `bypassDocumentValidation` has no client-level equivalent and is only honored by the per-collection fallback.
+         */
+        ClientNamespacedWriteModel toClientModel() {
+            return switch (model) {
+                case InsertOneModel<Bson> insert -> ClientNamespacedWriteModel.insertOne(namespace, insert.getDocument());
+                case ReplaceOneModel<Bson> replace -> ClientNamespacedWriteModel.replaceOne(
+                    namespace,
+                    replace.getFilter(),
+                    replace.getReplacement(),
+                    ClientReplaceOneOptions.clientReplaceOneOptions()
+                        .upsert(replace.getReplaceOptions().isUpsert())
+                        .collation(replace.getReplaceOptions().getCollation())
+                );
+                case UpdateOneModel<Bson> update -> ClientNamespacedWriteModel.updateOne(
+                    namespace,
+                    update.getFilter(),
+                    update.getUpdate(),
+                    ClientUpdateOneOptions.clientUpdateOneOptions()
+                        .upsert(update.getOptions().isUpsert())
+                        .collation(update.getOptions().getCollation())
+                        .arrayFilters(update.getOptions().getArrayFilters())
+                );
+                case UpdateManyModel<Bson> update -> ClientNamespacedWriteModel.updateMany(
+                    namespace,
+                    update.getFilter(),
+                    update.getUpdate(),
+                    ClientUpdateManyOptions.clientUpdateManyOptions()
+                        .upsert(update.getOptions().isUpsert())
+                        .collation(update.getOptions().getCollation())
+                        .arrayFilters(update.getOptions().getArrayFilters())
+                );
+                case DeleteOneModel<Bson> delete -> ClientNamespacedWriteModel.deleteOne(
+                    namespace,
+                    delete.getFilter(),
+                    ClientDeleteOneOptions.clientDeleteOneOptions().collation(delete.getOptions().getCollation())
+                );
+                case DeleteManyModel<Bson> delete -> ClientNamespacedWriteModel.deleteMany(
+                    namespace,
+                    delete.getFilter(),
+                    ClientDeleteManyOptions.clientDeleteManyOptions().collation(delete.getOptions().getCollation())
+                );
+                default -> throw new IllegalArgumentException("Unsupported write model " + model.getClass().getSimpleName());
+            };
+        }
+    }
+
     private ReplaceOptions getReplaceOptions(BsonDocument document) {
         ReplaceOptions options = new ReplaceOptions();
 
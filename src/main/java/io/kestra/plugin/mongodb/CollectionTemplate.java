@@ -0,0 +1,72 @@
+package io.kestra.plugin.mongodb;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Collection name template with {@code {record.path}} placeholders, parsed once and evaluated per record
+ * without going through the Pebble engine; single braces are left untouched when the property itself is rendered.
+ */
+final class CollectionTemplate {
+    private static final Pattern PLACEHOLDER = Pattern.compile("\\{\\s*record\\.([\\w.]+)\\s*}");
+
+    private final List<String> literals = new ArrayList<>();
+    private final List<String[]> paths = new ArrayList<>();
+
+    private CollectionTemplate() {
+    }
+
+    static CollectionTemplate compile(String template) {
+        CollectionTemplate compiled = new CollectionTemplate();
+        Matcher matcher = PLACEHOLDER.matcher(template);
+        int position = 0;
+
+        while (matcher.find()) {
+            compiled.literals.add(template.substring(position, matcher.start()));
+            compiled.paths.add(matcher.group(1).split("\\."));
+            position = matcher.end();
+        }
+        compiled.literals.add(template.substring(position));
+
+        if (compiled.literals.stream().anyMatch(literal -> literal.contains("{") || literal.contains("}"))) {
+            throw new IllegalArgumentException("Invalid collection template '" + template + "', only '{record.<field>}' placeholders are supported");
+        }
+
+        return compiled;
+    }
+
+    /**
+     * @return the collection name, or null when a placeholder field is missing on the record.
+     * @throws IllegalArgumentException when the record values make an invalid collection name
+     */
+    @SuppressWarnings("unchecked")
+    String apply(Map<String, Object> record) {
+        StringBuilder name = new StringBuilder(literals.getFirst());
+
+        for (int i = 0; i < paths.size(); i++) {
+            Object value = record;
+            for (String key : paths.get(i)) {
+                value = value instanceof Map<?, ?> map ? ((Map<String, Object>) map).get(key) : null;
+            }
+
+            if (value == null) {
+                return null;
+            }
+
+            name.append(value).append(literals.get(i + 1));
+        }
+
+        return validate(name.toString());
+    }
+
+    private static String validate(String name) {
+        if (name.isEmpty() || name.indexOf('$') >= 0 || name.indexOf('\0') >= 0 || name.startsWith("system.")) {
+            throw new IllegalArgumentException("Invalid collection name '" + name.replace("\0", "\\0") + "' computed from the collection template");
+        }
+
+        return name;
+    }
+}
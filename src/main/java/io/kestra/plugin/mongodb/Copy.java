@@ -0,0 +1,330 @@
+package io.kestra.plugin.mongodb;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.bson.BsonDocument;
+import org.bson.BsonString;
+import org.bson.RawBsonDocument;
+import org.bson.conversions.Bson;
+import org.slf4j.Logger;
+
+import com.mongodb.MongoNamespace;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.FindIterable;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.InsertOneModel;
+import com.mongodb.client.model.ReplaceOneModel;
+import com.mongodb.client.model.RenameCollectionOptions;
+import com.mongodb.client.model.ReplaceOptions;
+import com.mongodb.client.model.WriteModel;
+
+import io.kestra.core.models.annotations.Example;
+import io.kestra.core.models.annotations.Metric;
+import io.kestra.core.models.annotations.Plugin;
+import io.kestra.core.models.annotations.PluginProperty;
+import io.kestra.core.models.executions.metrics.Counter;
+import io.kestra.core.models.property.Property;
+import io.kestra.core.models.tasks.RunnableTask;
+import io.kestra.core.runners.RunContext;
+import io.kestra.core.utils.IdUtils;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotNull;
+import lombok.*;
+import lombok.experimental.SuperBuilder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+@SuperBuilder
+@ToString
+@EqualsAndHashCode
+@Getter
+@NoArgsConstructor
+@Schema(
+    title = "Copy a collection to another collection or cluster",
+    description = "Streams documents from the source collection to the target one without going through internal storage. " +
+        "Raw BSON bytes read from the source cursor are written as-is in bulk batches, with `_id` range partitions copied in parallel. " +
+        "When the target is on the same cluster, the copy runs server-side with `$merge` (or `$out` for OVERWRITE) and no document reaches the worker."
+)
+@Plugin(
+    examples = {
+        @Example(
+            full = true,
+            title = "Copy paid orders to a reporting cluster.",
+            code = """
+                id: mongodb_copy
+                namespace: company.team
+
+                tasks:
+                  - id: copy
+                    type: io.kestra.plugin.mongodb.Copy
+                    connection:
+                      uri: "{{ secret('MONGODB_PRIMARY_URI') }}"
+                    database: "shop"
+                    collection: "orders"
+                    filter:
+                      status: PAID
+                    targetConnection:
+                      uri: "{{ secret('MONGODB_REPORTING_URI') }}"
+                    targetCollection: "orders"
+                    writeMode: REPLACE
+                """
+        )
+    },
+    metrics = {
+        @Metric(
+            name = "records",
+            type = Counter.TYPE,
+            unit = "count",
+            description = "Number of documents copied by the worker"
+        ),
+        @Metric(
+            name = "requests.count",
+            type = Counter.TYPE,
+            unit = "count",
+            description = "Number of bulk requests sent to the target"
+        )
+    }
+)
+public class Copy extends AbstractTask implements RunnableTask<Copy.Output> {
+    @Schema(
+        title = "Query filter",
+        description = "BSON string or map selecting the source documents; copies the whole collection by default."
+    )
+    @PluginProperty(dynamic = true, group = "processing")
+    private Object filter;
+
+    @Schema(
+        title = "Target connection",
+        description = "Defaults to the source connection."
+    )
+    @PluginProperty(group = "destination")
+    private MongoDbConnection targetConnection;
+
+    @Schema(
+        title = "Target database",
+        description = "Defaults to the source database."
+    )
+    @PluginProperty(group = "destination")
+    private Property<String> targetDatabase;
+
+    @Schema(
+        title = "Target collection"
+    )
+    @NotNull
+    @PluginProperty(group = "destination")
+    private Property<String> targetCollection;
+
+    @Schema(
+        title = "Write mode",
+        description = "INSERT (default) fails on existing `_id`s, REPLACE upserts by `_id`, OVERWRITE replaces the whole target collection, keeping its indexes and options: " +
+            "between clusters, the documents are copied into a staging collection renamed over the target once complete, so the target can't be sharded."
+    )
+    @Builder.Default
+    @PluginProperty(group = "destination")
+    private Property<WriteMode> writeMode = Property.ofValue(WriteMode.INSERT);
+
+    @Schema(
+        title = "Parallelism",
+        description = "Number of `_id` range partitions copied concurrently; defaults to 4."
+    )
+    @Builder.Default
+    @PluginProperty(group = "execution")
+    private Property<Integer> parallelism = Property.ofValue(4);
+
+    @Schema(
+        title = "Bulk chunk size",
+        description = "Number of documents per bulkWrite call; defaults to 1000. Each partition keeps at most two chunks in memory."
+    )
+    @Builder.Default
+    @PluginProperty(group = "execution")
+    private Property<Integer> chunk = Property.ofValue(1000);
+
+    @Override
+    public Copy.Output run(RunContext runContext) throws Exception {
+        Logger logger = runContext.logger();
+
+        WriteMode writeMode = runContext.render(this.writeMode).as(WriteMode.class).orElseThrow();
+        BsonDocument filter = MongoDbService.toDocument(runContext, this.filter);
+        MongoDbConnection targetConnection = Optional.ofNullable(this.targetConnection).orElse(this.connection);
+        boolean sameCluster = runContext.render(this.connection.getUri()).as(String.class).orElseThrow()
+            .equals(runContext.render(targetConnection.getUri()).as(String.class).orElseThrow());
+
+        try (MongoClient client = this.connection.client(runContext)) {
+            MongoCollection<RawBsonDocument> source = this.collection(runContext, client, RawBsonDocument.class);
+            MongoNamespace target = new MongoNamespace(
+                runContext.render(this.targetDatabase).as(String.class).orElse(source.getNamespace().getDatabaseName()),
+                runContext.render(this.targetCollection).as(String.class).orElseThrow()
+            );
+
+            if (sameCluster) {
+                logger.info("Copying {} to {} server-side", source.getNamespace(), target);
+                this.copyServerSide(source, target, filter, writeMode);
+
+                return Output.builder()
+                    .serverSide(true)
+                    .build();
+            }
+
+            try (MongoClient targetClient = targetConnection.client(runContext)) {
+                MongoDatabase targetDatabase = targetClient.getDatabase(target.getDatabaseName());
+
+                if (writeMode != WriteMode.OVERWRITE) {
+                    return this.copyClientSide(runContext, source, targetDatabase.getCollection(target.getCollectionName(), RawBsonDocument.class), target, filter, writeMode);
+                }
+
+                // like $out: a staging collection with the target options and indexes replaces the target once complete
+                String stagingName = target.getCollectionName() + "_copy_" + IdUtils.create();
+                List<BsonDocument> indexes = MongoDbService.indexSpecs(targetDatabase.getCollection(target.getCollectionName()));
+                MongoDbService.createCollectionLike(targetDatabase, stagingName, target.getCollectionName());
+                MongoCollection<RawBsonDocument> staging = targetDatabase.getCollection(stagingName, RawBsonDocument.class);
+
+                try {
+                    Output output = this.copyClientSide(runContext, source, staging, target, filter, writeMode);
+
+                    MongoDbService.createIndexes(targetDatabase, stagingName, indexes);
+                    staging.renameCollection(target, new RenameCollectionOptions().dropTarget(true));
+                    logger.info("Replaced {} with staging collection {} and {} indexes", target, stagingName, indexes.size());
+
+                    return output;
+                } catch (Exception e) {
+                    staging.drop();
+                    throw e;
+                }
+            }
+        }
+    }
+
+    private Copy.Output copyClientSide(
+        RunContext runContext,
+        MongoCollection<RawBsonDocument> source,
+        MongoCollection<RawBsonDocument> targetCollection,
+        MongoNamespace target,
+        BsonDocument filter,
+        WriteMode writeMode
+    ) throws Exception {
+        Logger logger = runContext.logger();
+
+        int parallelism = runContext.render(this.parallelism).as(Integer.class).orElseThrow();
+        int chunk = runContext.render(this.chunk).as(Integer.class).orElseThrow();
+        List<IdRange> ranges = IdRange.split(source, null, parallelism, IdRange.stats(source).count());
+
+        AtomicLong count = new AtomicLong();
+        AtomicLong requests = new AtomicLong();
+
+        Flux.fromIterable(ranges)
+            .flatMap(
+                range -> this.copyPartition(source, targetCollection, range, filter, writeMode, chunk)
+                    .doOnNext(result -> {
+                        requests.incrementAndGet();
+                        count.addAndGet(result.getInsertedCount() + result.getUpserts().size() + result.getMatchedCount());
+                    }),
+                parallelism
+            )
+            .blockLast();
+
+        runContext.metric(
+            Counter.of(
+                "requests.count", requests.get(),
+                "database", target.getDatabaseName(),
+                "collection", target.getCollectionName()
+            )
+        );
+        runContext.metric(
+            Counter.of(
+                "records", count.get(),
+                "database", target.getDatabaseName(),
+                "collection", target.getCollectionName()
+            )
+        );
+
+        logger.info("Copied {} documents from {} to {} in {} requests", count.get(), source.getNamespace(), target, requests.get());
+
+        return Output.builder()
+            .size(count.get())
+            .serverSide(false)
+            .build();
+    }
+
+    private void copyServerSide(MongoCollection<RawBsonDocument> source, MongoNamespace target, BsonDocument filter, WriteMode writeMode) {
+        List<Bson> pipeline = new ArrayList<>();
+        if (!filter.isEmpty()) {
+            pipeline.add(new BsonDocument("$match", filter));
+        }
+
+        BsonDocument into = new BsonDocument("db", new BsonString(target.getDatabaseName()))
+            .append("coll", new BsonString(target.getCollectionName()));
+
+        if (writeMode == WriteMode.OVERWRITE) {
+            pipeline.add(new BsonDocument("$out", into));
+        } else {
+            pipeline.add(new BsonDocument("$merge", new BsonDocument("into", into)
+                .append("on", new BsonString("_id"))
+                .append("whenMatched", new BsonString(writeMode == WriteMode.REPLACE ? "replace" : "fail"))
+                .append("whenNotMatched", new BsonString("insert"))
+            ));
+        }
+
+        source.aggregate(pipeline).allowDiskUse(true).toCollection();
+    }
+
+    /**
+     * Read a partition on one thread and write it on another: the source cursor keeps reading while the previous chunk
+     * is being written, and the bounded prefetch keeps memory at two chunks per partition.
+     */
+    private Flux<BulkWriteResult> copyPartition(
+        MongoCollection<RawBsonDocument> source,
+        MongoCollection<RawBsonDocument> target,
+        IdRange range,
+        BsonDocument filter,
+        WriteMode writeMode,
+        int chunk
+    ) {
+        FindIterable<RawBsonDocument> find = range.apply(source.find(filter).batchSize(chunk));
+        BulkWriteOptions options = new BulkWriteOptions().ordered(false);
+
+        return Flux.fromIterable(find)
+            .subscribeOn(Schedulers.boundedElastic())
+            .map(document -> this.writeModel(document, writeMode))
+            .buffer(chunk)
+            .publishOn(Schedulers.boundedElastic(), 2)
+            .concatMap(models -> Mono.fromCallable(() -> target.bulkWrite(models, options)));
+    }
+
+    private WriteModel<RawBsonDocument> writeModel(RawBsonDocument document, WriteMode writeMode) {
+        if (writeMode == WriteMode.REPLACE) {
+            return new ReplaceOneModel<>(new BsonDocument("_id", document.get("_id")), document, new ReplaceOptions().upsert(true));
+        }
+
+        // raw bytes are copied as-is by the codec, no decoding happens between source and target
+        return new InsertOneModel<>(document);
+    }
+
+    public enum WriteMode {
+        INSERT,
+        REPLACE,
+        OVERWRITE
+    }
+
+    @Builder
+    @Getter
+    public static class Output implements io.kestra.core.models.tasks.Output {
+        @Schema(
+            title = "Documents copied",
+            description = "Null when the copy ran server-side."
+        )
+        private Long size;
+
+        @Schema(
+            title = "Whether the copy ran server-side with $merge or $out"
+        )
+        private Boolean serverSide;
+    }
+}
@@ -0,0 +1,53 @@
+package io.kestra.plugin.mongodb;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.bson.RawBsonDocument;
+import org.bson.json.JsonMode;
+import org.bson.json.JsonWriterSettings;
+
+import io.kestra.core.serializers.FileSerde;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(
+    title = "File format used to write documents to internal storage",
+    description = "ION is the Kestra native format; BSON copies the raw document bytes (mongodump-like, fastest); NDJSON writes one relaxed extended JSON document per line."
+)
+public enum DocumentFormat {
+    ION(".ion"),
+    BSON(".bson"),
+    NDJSON(".jsonl");
+
+    private static final JsonWriterSettings JSON_SETTINGS = JsonWriterSettings.builder().outputMode(JsonMode.RELAXED).build();
+
+    private final String extension;
+
+    DocumentFormat(String extension) {
+        this.extension = extension;
+    }
+
+    public String extension() {
+        return this.extension;
+    }
+
+    /**
+     * Write a document without decoding it to a {@link org.bson.BsonDocument} first; only ION needs a conversion to Java objects.
+     */
+    public void write(OutputStream output, RawBsonDocument document) throws IOException {
+        switch (this) {
+            case ION -> FileSerde.write(output, MongoDbService.map(document));
+            case BSON -> {
+                ByteBuffer buffer = document.getByteBuffer().asNIO();
+                output.write(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+            }
+            case NDJSON -> {
+                output.write(document.toJson(JSON_SETTINGS).getBytes(StandardCharsets.UTF_8));
+                output.write('\n');
+            }
+        }
+    }
+}
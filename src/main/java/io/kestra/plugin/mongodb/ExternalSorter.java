@@ -0,0 +1,277 @@
+package io.kestra.plugin.mongodb;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.concurrent.Callable;
+
+import org.bson.BsonBoolean;
+import org.bson.BsonDocument;
+import org.bson.BsonDocumentReader;
+import org.bson.BsonNull;
+import org.bson.BsonType;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.BsonDocumentCodec;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.configuration.CodecRegistry;
+import org.bson.conversions.Bson;
+
+import com.mongodb.client.model.InsertOneModel;
+import com.mongodb.client.model.ReplaceOneModel;
+import com.mongodb.client.model.ReplaceOptions;
+import com.mongodb.client.model.WriteModel;
+
+import io.kestra.core.serializers.FileSerde;
+
+import reactor.core.publisher.Flux;
+
+import static io.kestra.core.utils.Rethrow.throwSupplier;
+
+/**
+ * Stable external merge sort of insert and replace models on a document key: models are sorted in memory by runs of
+ * {@code runSize}, runs are spilled as raw BSON to temp files, then merged with one open reader per run.
+ * Keys are ordered like MongoDB orders BSON types; numbers of different types compare as doubles.
+ */
+final class ExternalSorter {
+    private static final BsonDocumentCodec WRAPPER_CODEC = new BsonDocumentCodec();
+
+    private static final Comparator<Entry> ORDER = Comparator.comparing(Entry::key, ExternalSorter::compare);
+
+    private final String key;
+    private final int runSize;
+    private final CodecRegistry codecRegistry;
+    private final Codec<Document> documentCodec;
+    private final Callable<Path> tempFiles;
+
+    ExternalSorter(String key, int runSize, CodecRegistry codecRegistry, Callable<Path> tempFiles) {
+        this.key = key;
+        this.runSize = runSize;
+        this.codecRegistry = codecRegistry;
+        this.documentCodec = codecRegistry.get(Document.class);
+        this.tempFiles = tempFiles;
+    }
+
+    Flux<WriteModel<Bson>> sort(Flux<WriteModel<Bson>> source) {
+        return Flux.defer(throwSupplier(() -> {
+            List<Entry> buffer = new ArrayList<>(runSize);
+            List<Path> runs = new ArrayList<>();
+
+            for (WriteModel<Bson> model : source.toIterable()) {
+                buffer.add(this.entry(model));
+
+                if (buffer.size() >= runSize) {
+                    runs.add(this.spill(buffer));
+                    buffer.clear();
+                }
+            }
+
+            // List.sort is stable, so records sharing a key keep their file order
+            buffer.sort(ORDER);
+            if (runs.isEmpty()) {
+                return Flux.fromIterable(buffer).map(Entry::model);
+            }
+
+            if (!buffer.isEmpty()) {
+                runs.add(this.spill(buffer));
+            }
+
+            List<Run> readers = new ArrayList<>();
+            for (Path run : runs) {
+                readers.add(new Run(readers.size(), run));
+            }
+
+            return Flux.fromIterable(() -> this.merge(readers))
+                .doFinally(signal -> readers.forEach(Run::close));
+        }));
+    }
+
+    private Entry entry(WriteModel<Bson> model) {
+        BsonValue value;
+
+        if (model instanceof InsertOneModel<Bson> insert) {
+            value = MongoDbService.resolve(insert.getDocument().toBsonDocument(BsonDocument.class, codecRegistry), key);
+        } else if (model instanceof ReplaceOneModel<Bson> replace) {
+            // upserts by _id only carry the key in the filter, other keys (e.g. a shard key) are in the replacement
+            value = MongoDbService.resolve(replace.getFilter().toBsonDocument(BsonDocument.class, codecRegistry), key);
+            if (value == null) {
+                value = MongoDbService.resolve(replace.getReplacement().toBsonDocument(BsonDocument.class, codecRegistry), key);
+            }
+        } else {
+            throw new IllegalArgumentException("Sorting only supports insert and replace operations, got " + model.getClass().getSimpleName());
+        }
+
+        return new Entry(value == null ? BsonNull.VALUE : value, model);
+    }
+
+    private Path spill(List<Entry> buffer) throws Exception {
+        buffer.sort(ORDER);
+        Path path = tempFiles.call();
+
+        try (OutputStream output = new BufferedOutputStream(Files.newOutputStream(path), FileSerde.BUFFER_SIZE)) {
+            for (Entry entry : buffer) {
+                BsonDocument wrapper = new BsonDocument("k", entry.key());
+
+                if (entry.model() instanceof ReplaceOneModel<Bson> replace) {
+                    wrapper
+                        .append("f", replace.getFilter().toBsonDocument(BsonDocument.class, codecRegistry))
+                        .append("d", replace.getReplacement().toBsonDocument(BsonDocument.class, codecRegistry))
+                        .append("u", BsonBoolean.valueOf(replace.getReplaceOptions().isUpsert()));
+                } else {
+                    wrapper.append("d", ((InsertOneModel<Bson>) entry.model()).getDocument().toBsonDocument(BsonDocument.class, codecRegistry));
+                }
+
+                ByteBuffer bytes = new RawBsonDocument(wrapper, WRAPPER_CODEC).getByteBuffer().asNIO();
+                output.write(bytes.array(), bytes.arrayOffset() + bytes.position(), bytes.remaining());
+            }
+        }
+
+        return path;
+    }
+
+    private Iterator<WriteModel<Bson>> merge(List<Run> runs) {
+        // ties are broken on the run index, runs being in file order, to keep the sort stable
+        PriorityQueue<Run> queue = new PriorityQueue<>(
+            Comparator.<Run, Entry>comparing(run -> run.current, ORDER).thenComparingInt(run -> run.index)
+        );
+        runs.stream().filter(Run::advance).forEach(queue::add);
+
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return !queue.isEmpty();
+            }
+
+            @Override
+            public WriteModel<Bson> next() {
+                Run run = queue.poll();
+                if (run == null) {
+                    throw new NoSuchElementException();
+                }
+
+                WriteModel<Bson> model = run.current.model();
+                if (run.advance()) {
+                    queue.add(run);
+                }
+
+                return model;
+            }
+        };
+    }
+
+    private record Entry(BsonValue key, WriteModel<Bson> model) {
+    }
+
+    private class Run {
+        private final int index;
+        private final Path path;
+        private final DataInputStream input;
+        private Entry current;
+
+        Run(int index, Path path) throws IOException {
+            this.index = index;
+            this.path = path;
+            this.input = new DataInputStream(new BufferedInputStream(Files.newInputStream(path), FileSerde.BUFFER_SIZE));
+        }
+
+        boolean advance() {
+            try {
+                byte[] size = new byte[4];
+                try {
+                    input.readFully(size);
+                } catch (EOFException e) {
+                    current = null;
+                    return false;
+                }
+
+                byte[] bytes = new byte[ByteBuffer.wrap(size).order(ByteOrder.LITTLE_ENDIAN).getInt()];
+                System.arraycopy(size, 0, bytes, 0, 4);
+                input.readFully(bytes, 4, bytes.length - 4);
+
+                RawBsonDocument wrapper = new RawBsonDocument(bytes);
+                // documents are decoded back to Document, which is what the stages after the sort expect from Load
+                Document document = documentCodec.decode(new BsonDocumentReader(wrapper.getDocument("d")), DecoderContext.builder().build());
+
+                WriteModel<Bson> model = wrapper.containsKey("f") ?
+                    new ReplaceOneModel<>(wrapper.getDocument("f"), document, new ReplaceOptions().upsert(wrapper.getBoolean("u").getValue())) :
+                    new InsertOneModel<>(document);
+
+                current = new Entry(wrapper.get("k"), model);
+                return true;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        void close() {
+            try {
+                input.close();
+                Files.deleteIfExists(path);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    static int compare(BsonValue a, BsonValue b) {
+        int rank = Integer.compare(rank(a.getBsonType()), rank(b.getBsonType()));
+        if (rank != 0) {
+            return rank;
+        }
+
+        return switch (a.getBsonType()) {
+            case INT32, INT64, DOUBLE, DECIMAL128 -> a.isInt64() && b.isInt64() ?
+                Long.compare(a.asInt64().getValue(), b.asInt64().getValue()) :
+                Double.compare(a.asNumber().doubleValue(), b.asNumber().doubleValue());
+            // binary collation: UTF-8 bytes, which differs from UTF-16 code units for supplementary characters
+            case STRING, SYMBOL -> Arrays.compareUnsigned(string(a).getBytes(StandardCharsets.UTF_8), string(b).getBytes(StandardCharsets.UTF_8));
+            case OBJECT_ID -> a.asObjectId().getValue().compareTo(b.asObjectId().getValue());
+            case BOOLEAN -> Boolean.compare(a.asBoolean().getValue(), b.asBoolean().getValue());
+            case DATE_TIME -> Long.compare(a.asDateTime().getValue(), b.asDateTime().getValue());
+            case TIMESTAMP -> a.asTimestamp().compareTo(b.asTimestamp());
+            case MIN_KEY, MAX_KEY, NULL, UNDEFINED -> 0;
+            default -> a.toString().compareTo(b.toString());
+        };
+    }
+
+    private static String string(BsonValue value) {
+        return value.isString() ? value.asString().getValue() : value.asSymbol().getSymbol();
+    }
+
+    private static int rank(BsonType type) {
+        return switch (type) {
+            case MIN_KEY -> 0;
+            case NULL, UNDEFINED -> 1;
+            case INT32, INT64, DOUBLE, DECIMAL128 -> 2;
+            case STRING, SYMBOL -> 3;
+            case DOCUMENT -> 4;
+            case ARRAY -> 5;
+            case BINARY -> 6;
+            case OBJECT_ID -> 7;
+            case BOOLEAN -> 8;
+            case DATE_TIME -> 9;
+            case TIMESTAMP -> 10;
+            case REGULAR_EXPRESSION -> 11;
+            case MAX_KEY -> 13;
+            default -> 12;
+        };
+    }
+}
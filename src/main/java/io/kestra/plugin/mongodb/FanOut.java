@@ -0,0 +1,181 @@
+package io.kestra.plugin.mongodb;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+import org.bson.BsonDocument;
+
+import com.mongodb.MongoNamespace;
+import com.mongodb.client.MongoClient;
+
+import io.kestra.core.models.executions.metrics.Counter;
+import io.kestra.core.runners.RunContext;
+import io.kestra.core.serializers.FileSerde;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Runs the same read over many namespaces of one client concurrently, for Find and Aggregate over per-tenant databases
+ * or per-period collections. Each row is tagged with its source namespace.
+ */
+final class FanOut {
+    private FanOut() {
+    }
+
+    private static final List<String> SYSTEM_DATABASES = List.of("admin", "local", "config");
+
+    /**
+     * Resolve the namespaces to read, `database` and `collection` being full-match regexes when flagged so; sorted by name.
+     * A database regex only matches the `admin`, `local` and `config` system databases when it names them, e.g. `admin|app_.*`, not with `.*`.
+     */
+    static List<MongoNamespace> namespaces(MongoClient client, String database, boolean databaseRegex, String collection, boolean collectionRegex) {
+        List<String> databases = databaseRegex ?
+            matching(client.listDatabaseNames(), Pattern.compile(database)) :
+            List.of(database);
+
+        if (databaseRegex) {
+            databases.removeIf(name -> SYSTEM_DATABASES.contains(name) && !database.contains(name));
+        }
+
+        List<MongoNamespace> namespaces = new ArrayList<>();
+        for (String name : databases) {
+            List<String> collections = collectionRegex ?
+                matching(client.getDatabase(name).listCollectionNames(), Pattern.compile(collection)) :
+                List.of(collection);
+
+            collections.forEach(c -> namespaces.add(new MongoNamespace(name, c)));
+        }
+
+        return namespaces;
+    }
+
+    private static List<String> matching(Iterable<String> names, Pattern pattern) {
+        List<String> matching = new ArrayList<>();
+        names.forEach(name -> {
+            if (pattern.matcher(name).matches()) {
+                matching.add(name);
+            }
+        });
+        Collections.sort(matching);
+
+        return matching;
+    }
+
+    /**
+     * @param store write the rows to internal storage instead of returning them
+     * @param split keep the rows of each namespace apart instead of merging them
+     */
+    static Result run(
+        RunContext runContext,
+        List<MongoNamespace> namespaces,
+        Function<MongoNamespace, Iterable<BsonDocument>> query,
+        int parallelism,
+        String namespaceField,
+        boolean store,
+        boolean split
+    ) throws IOException {
+        Map<String, AtomicLong> counts = new LinkedHashMap<>();
+        namespaces.forEach(namespace -> counts.put(namespace.getFullName(), new AtomicLong()));
+
+        Function<MongoNamespace, Flux<Object>> rows = namespace -> Flux.fromIterable(query.apply(namespace))
+            .map(document -> {
+                @SuppressWarnings("unchecked")
+                Map<String, Object> row = (Map<String, Object>) MongoDbService.map(document);
+                row.put(namespaceField, namespace.getFullName());
+                counts.get(namespace.getFullName()).incrementAndGet();
+
+                return (Object) row;
+            })
+            .subscribeOn(Schedulers.boundedElastic());
+
+        Result.ResultBuilder result = Result.builder();
+
+        if (split && store) {
+            Map<String, URI> uris = new ConcurrentSkipListMap<>();
+
+            Flux.fromIterable(namespaces)
+                .flatMap(
+                    namespace -> Mono.fromCallable(() -> write(runContext, rows.apply(namespace)))
+                        .subscribeOn(Schedulers.boundedElastic())
+                        .doOnNext(uri -> uris.put(namespace.getFullName(), uri)),
+                    parallelism
+                )
+                .blockLast();
+
+            result.uris(uris);
+        } else if (split) {
+            Map<String, List<Object>> rowsByNamespace = new ConcurrentSkipListMap<>();
+
+            Flux.fromIterable(namespaces)
+                .flatMap(
+                    namespace -> rows.apply(namespace)
+                        .collectList()
+                        .doOnNext(list -> rowsByNamespace.put(namespace.getFullName(), list)),
+                    parallelism
+                )
+                .blockLast();
+
+            result.rowsByNamespace(rowsByNamespace);
+        } else {
+            // rows of the namespaces are interleaved as they arrive
+            Flux<Object> merged = Flux.fromIterable(namespaces).flatMap(rows, parallelism);
+
+            if (store) {
+                result.uri(write(runContext, merged));
+            } else {
+                result.rows(merged.collectList().block());
+            }
+        }
+
+        Map<String, Long> sizes = new LinkedHashMap<>();
+        for (MongoNamespace namespace : namespaces) {
+            long size = counts.get(namespace.getFullName()).get();
+            sizes.put(namespace.getFullName(), size);
+
+            runContext.metric(Counter.of("records", size, "database", namespace.getDatabaseName(), "collection", namespace.getCollectionName()));
+        }
+
+        return result
+            .sizes(sizes)
+            .size(sizes.values().stream().mapToLong(Long::longValue).sum())
+            .build();
+    }
+
+    private static URI write(RunContext runContext, Flux<Object> rows) throws IOException {
+        File tempFile = runContext.workingDir().createTempFile(".ion").toFile();
+
+        try (var output = new BufferedOutputStream(new FileOutputStream(tempFile), FileSerde.BUFFER_SIZE)) {
+            FileSerde.writeAll(output, rows).block();
+        }
+
+        return runContext.storage().putFile(tempFile);
+    }
+
+    @Builder
+    @Getter
+    static class Result {
+        private List<Object> rows;
+        private URI uri;
+        private Long size;
+        private Map<String, List<Object>> rowsByNamespace;
+        private Map<String, URI> uris;
+        private Map<String, Long> sizes;
+    }
+}
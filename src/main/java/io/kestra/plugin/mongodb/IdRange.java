@@ -0,0 +1,99 @@
+package io.kestra.plugin.mongodb;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.bson.BsonDocument;
+import org.bson.BsonInt32;
+import org.bson.BsonValue;
+
+import com.mongodb.client.ClientSession;
+import com.mongodb.client.FindIterable;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.Sorts;
+
+/**
+ * A contiguous range of the `_id` index, {@code null} bounds being open. Ranges are applied with index bounds
+ * ({@code min}/{@code max} on the `_id` index) rather than `$gte`/`$lt`, so documents with `_id`s of mixed BSON types
+ * are not lost to type bracketing.
+ */
+record IdRange(BsonValue min, BsonValue max) {
+    private static final BsonDocument ID_INDEX = new BsonDocument("_id", new BsonInt32(1));
+    private static final int SAMPLES_PER_PARTITION = 20;
+
+    <T> FindIterable<T> apply(FindIterable<T> find) {
+        find.hint(ID_INDEX);
+
+        if (this.min != null) {
+            find.min(new BsonDocument("_id", this.min));
+        }
+
+        if (this.max != null) {
+            find.max(new BsonDocument("_id", this.max));
+        }
+
+        return find;
+    }
+
+    /**
+     * Storage statistics of a collection, summed over all shards.
+     */
+    static Stats stats(MongoCollection<?> collection) {
+        long count = 0;
+        long size = 0;
+
+        for (BsonDocument shard : collection.aggregate(List.of(new BsonDocument("$collStats", new BsonDocument("storageStats", new BsonDocument()))), BsonDocument.class)) {
+            BsonDocument storageStats = shard.getDocument("storageStats", new BsonDocument());
+            count += storageStats.containsKey("count") ? storageStats.get("count").asNumber().longValue() : 0;
+            size += storageStats.containsKey("size") ? storageStats.get("size").asNumber().longValue() : 0;
+        }
+
+        return new Stats(count, size);
+    }
+
+    /**
+     * Split the `_id` space in roughly equal ranges, using split points taken at quantiles of a random sample.
+     */
+    static List<IdRange> split(MongoCollection<?> collection, ClientSession session, int partitions, long count) {
+        List<IdRange> ranges = new ArrayList<>();
+
+        if (partitions <= 1 || count <= partitions) {
+            ranges.add(new IdRange(null, null));
+            return ranges;
+        }
+
+        int sampleSize = (int) Math.min((long) partitions * SAMPLES_PER_PARTITION, count);
+        var pipeline = List.of(
+            Aggregates.sample(sampleSize),
+            Aggregates.project(Projections.include("_id")),
+            Aggregates.sort(Sorts.ascending("_id"))
+        );
+
+        List<BsonValue> sample = new ArrayList<>();
+        (session != null ? collection.aggregate(session, pipeline, BsonDocument.class) : collection.aggregate(pipeline, BsonDocument.class))
+            .forEach(document -> sample.add(document.get("_id")));
+
+        if (sample.isEmpty()) {
+            ranges.add(new IdRange(null, null));
+            return ranges;
+        }
+
+        BsonValue previous = null;
+        for (int i = 1; i < partitions; i++) {
+            BsonValue splitPoint = sample.get(i * sample.size() / partitions);
+
+            if (!splitPoint.equals(previous)) {
+                ranges.add(new IdRange(previous, splitPoint));
+                previous = splitPoint;
+            }
+        }
+        ranges.add(new IdRange(previous, null));
+
+        return ranges;
+    }
+
+    record Stats(long count, long size) {
+    }
+}
@@ -0,0 +1,57 @@
+package io.kestra.plugin.mongodb;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+
+/**
+ * Thread-safe map evicting the least recently used entries above a maximum total weight, one per entry unless a weigher
+ * is given; a maximum of zero caches nothing.
+ */
+final class LruCache<K, V> {
+    private final long maxWeight;
+    private final ToLongFunction<V> weigher;
+    private final LinkedHashMap<K, V> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long weight;
+
+    LruCache(int maxSize) {
+        this(maxSize, value -> 1);
+    }
+
+    LruCache(long maxWeight, ToLongFunction<V> weigher) {
+        this.maxWeight = maxWeight;
+        this.weigher = weigher;
+    }
+
+    synchronized V get(K key) {
+        return entries.get(key);
+    }
+
+    synchronized void put(K key, V value) {
+        long valueWeight = weigher.applyAsLong(value);
+        if (valueWeight > maxWeight) {
+            this.remove(key);
+            return;
+        }
+
+        V previous = entries.put(key, value);
+        if (previous != null) {
+            weight -= weigher.applyAsLong(previous);
+        }
+        weight += valueWeight;
+
+        Iterator<Map.Entry<K, V>> eldest = entries.entrySet().iterator();
+        while (weight > maxWeight) {
+            weight -= weigher.applyAsLong(eldest.next().getValue());
+            eldest.remove();
+        }
+    }
+
+    synchronized void remove(K key) {
+        V previous = entries.remove(key);
+        if (previous != null) {
+            weight -= weigher.applyAsLong(previous);
+        }
+    }
+}
@@ -1,23 +1,50 @@
 package io.kestra.plugin.mongodb;
 
 import java.io.IOException;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.AbstractMap;
+import java.util.ArrayList;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
 
+import org.bson.BsonArray;
+import org.bson.BsonBoolean;
 import org.bson.BsonDocument;
+import org.bson.BsonInt64;
+import org.bson.BsonString;
 import org.bson.BsonValue;
+import org.bson.conversions.Bson;
+import org.bson.json.JsonMode;
+import org.bson.json.JsonWriterSettings;
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.DeleteManyModel;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.DeleteOneModel;
+import com.mongodb.client.model.InsertOneModel;
+import com.mongodb.client.model.ReplaceOneModel;
+import com.mongodb.client.model.UpdateManyModel;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.WriteModel;
 
 import io.kestra.core.exceptions.IllegalVariableEvaluationException;
 import io.kestra.core.runners.RunContext;
 import io.kestra.core.serializers.JacksonMapper;
+import io.kestra.core.storages.kv.KVMetadata;
+import io.kestra.core.storages.kv.KVStore;
+import io.kestra.core.storages.kv.KVValue;
+import io.kestra.core.storages.kv.KVValueAndMetadata;
 
 public abstract class MongoDbService {
     @SuppressWarnings("unchecked")
     public static BsonDocument toDocument(RunContext runContext, Object value) throws IllegalVariableEvaluationException, IOException {
-        if (value instanceof String) {
+        if (value instanceof BsonDocument) {
+            return (BsonDocument) value;
+        } else if (value instanceof String) {
             return BsonDocument.parse(runContext.render((String) value));
         } else if (value instanceof Map) {
             return BsonDocument.parse(JacksonMapper.ofJson().writeValueAsString(runContext.render((Map<String, Object>) value)));
@@ -28,6 +55,132 @@ public abstract class MongoDbService {
         }
     }
 
+    /**
+     * Build a KV store key for a state owned by the current flow, e.g. a trigger watermark.
+     */
+    public static String stateKey(RunContext runContext, String... parts) {
+        StringBuilder key = new StringBuilder("mongodb_").append(runContext.flowInfo().id());
+
+        for (String part : parts) {
+            key.append("_").append(part);
+        }
+
+        return key.toString().replaceAll("[^a-zA-Z0-9._-]", "_");
+    }
+
+    /**
+     * Read a state document from the namespace KV store; returns an empty document if nothing was stored yet.
+     */
+    public static BsonDocument readState(RunContext runContext, String key) throws Exception {
+        KVStore kvStore = runContext.namespaceKv(runContext.flowInfo().namespace());
+
+        return kvStore.getValue(key)
+            .map(KVValue::value)
+            .map(value -> BsonDocument.parse(value.toString()))
+            .orElseGet(BsonDocument::new);
+    }
+
+    /**
+     * Store a state document in the namespace KV store as extended JSON so BSON types (ObjectId, dates...) survive.
+     */
+    public static void writeState(RunContext runContext, String key, BsonDocument state, Duration ttl) throws Exception {
+        KVStore kvStore = runContext.namespaceKv(runContext.flowInfo().namespace());
+
+        kvStore.put(key, new KVValueAndMetadata(new KVMetadata("MongoDB plugin state", ttl), state.toJson(JsonWriterSettings.builder().outputMode(JsonMode.EXTENDED).build())));
+    }
+
+    /**
+     * Key of a value for client-side joins: integral numbers of any BSON type are the same key, like they match in MongoDB queries.
+     */
+    public static BsonValue joinKey(BsonValue value) {
+        if (value.isInt32()) {
+            return new BsonInt64(value.asInt32().getValue());
+        }
+
+        if (value.isDouble() && value.asDouble().getValue() == Math.rint(value.asDouble().getValue()) && Math.abs(value.asDouble().getValue()) < 0x1p53) {
+            return new BsonInt64((long) value.asDouble().getValue());
+        }
+
+        return value;
+    }
+
+    /**
+     * Resolve a dotted path (e.g. `customer._id`) in a document; returns null if any part is missing.
+     */
+    public static BsonValue resolve(BsonDocument document, String path) {
+        BsonValue current = document;
+
+        for (String part : path.split("\\.")) {
+            if (current == null || !current.isDocument()) {
+                return null;
+            }
+
+            current = current.asDocument().get(part);
+        }
+
+        return current;
+    }
+
+    /**
+     * Documents after a watermark in ({@code field}, `_id`) order, so that documents sharing the watermark value aren't skipped.
+     *
+     * @param previous last value seen, or null to match every document having the field
+     * @param previousId `_id` of the last document seen with that value, null for watermarks stored without it
+     */
+    public static BsonDocument afterWatermark(String field, BsonValue previous, BsonValue previousId) {
+        if (previous == null) {
+            return new BsonDocument(field, new BsonDocument("$exists", BsonBoolean.TRUE));
+        }
+
+        if (field.equals("_id") || previousId == null) {
+            return new BsonDocument(field, new BsonDocument("$gt", previous));
+        }
+
+        return new BsonDocument("$or", new BsonArray(List.of(
+            new BsonDocument(field, new BsonDocument("$gt", previous)),
+            new BsonDocument(field, previous).append("_id", new BsonDocument("$gt", previousId))
+        )));
+    }
+
+    /**
+     * Documents up to an upper bound in ({@code field}, `_id`) order, the counterpart of {@link #afterWatermark}.
+     */
+    public static BsonDocument upToWatermark(String field, BsonValue upper, BsonValue upperId) {
+        if (field.equals("_id") || upperId == null) {
+            return new BsonDocument(field, new BsonDocument("$lte", upper));
+        }
+
+        return new BsonDocument("$or", new BsonArray(List.of(
+            new BsonDocument(field, new BsonDocument("$lt", upper)),
+            new BsonDocument(field, upper).append("_id", new BsonDocument("$lte", upperId))
+        )));
+    }
+
+    /**
+     * Resolve a dotted path on the document targeted by a write model: the inserted document for inserts, the filter otherwise.
+     */
+    public static BsonValue keyOf(WriteModel<? extends Bson> model, String path) {
+        Bson target;
+
+        if (model instanceof InsertOneModel<? extends Bson> insert) {
+            target = insert.getDocument();
+        } else if (model instanceof ReplaceOneModel<? extends Bson> replace) {
+            target = replace.getFilter();
+        } else if (model instanceof UpdateOneModel<? extends Bson> update) {
+            target = update.getFilter();
+        } else if (model instanceof UpdateManyModel<? extends Bson> update) {
+            target = update.getFilter();
+        } else if (model instanceof DeleteOneModel<? extends Bson> delete) {
+            target = delete.getFilter();
+        } else if (model instanceof DeleteManyModel<? extends Bson> delete) {
+            target = delete.getFilter();
+        } else {
+            return null;
+        }
+
+        return resolve(target.toBsonDocument(), path);
+    }
+
     public static Object map(BsonValue doc) {
         switch (doc.getBsonType()) {
             case NULL:
@@ -91,4 +244,50 @@ public abstract class MongoDbService {
                 throw new IllegalArgumentException("Unsupported BsonValue " + doc.getBsonType() + ":" + doc);
         }
     }
+
+    /**
+     * Index specifications of a collection, except the mandatory `_id` one, as accepted back by createIndexes.
+     * Empty when the collection doesn't exist.
+     */
+    public static List<BsonDocument> indexSpecs(MongoCollection<?> collection) {
+        List<BsonDocument> specs = new ArrayList<>();
+
+        for (BsonDocument index : collection.listIndexes(BsonDocument.class)) {
+            if (!"_id_".equals(index.getString("name").getValue())) {
+                index.remove("v");
+                index.remove("ns");
+                specs.add(index);
+            }
+        }
+
+        return specs;
+    }
+
+    /**
+     * Build all indexes with a single createIndexes command, so the server scans the collection once for all of them.
+     */
+    public static void createIndexes(MongoDatabase database, String collection, List<BsonDocument> specs) {
+        if (specs.isEmpty()) {
+            return;
+        }
+
+        database.runCommand(
+            new BsonDocument("createIndexes", new BsonString(collection))
+                .append("indexes", new BsonArray(specs))
+        );
+    }
+
+    /**
+     * Create a collection with the same options (validator, collation...) as another one, or with default options if it doesn't exist.
+     */
+    public static void createCollectionLike(MongoDatabase database, String collection, String model) {
+        BsonDocument create = new BsonDocument("create", new BsonString(collection));
+
+        BsonDocument info = database.listCollections(BsonDocument.class).filter(Filters.eq("name", model)).first();
+        if (info != null) {
+            create.putAll(info.getDocument("options", new BsonDocument()));
+        }
+
+        database.runCommand(create);
+    }
 }
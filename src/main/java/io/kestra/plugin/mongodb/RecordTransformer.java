@@ -0,0 +1,106 @@
+package io.kestra.plugin.mongodb;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+
+import org.bson.BsonObjectId;
+import org.bson.types.Decimal128;
+import org.bson.types.ObjectId;
+
+/**
+ * Record transformations built once from rendered task properties, then applied in place on each record
+ * with no property lookup: `idKey` to `_id`, renames, removals, type coercions and constant fields, in that order.
+ */
+final class RecordTransformer implements UnaryOperator<Map<String, Object>> {
+    private final Consumer<Map<String, Object>>[] steps;
+
+    @SuppressWarnings("unchecked")
+    RecordTransformer(
+        String idKey,
+        boolean removeIdKey,
+        Map<String, String> renameFields,
+        List<String> removeFields,
+        Map<String, Load.FieldType> coerceTypes,
+        Map<String, Object> constantFields
+    ) {
+        List<Consumer<Map<String, Object>>> steps = new ArrayList<>();
+
+        if (idKey != null) {
+            steps.add(values -> {
+                values.put("_id", new BsonObjectId(objectId(values.get(idKey))));
+
+                if (removeIdKey) {
+                    values.remove(idKey);
+                }
+            });
+        }
+
+        if (renameFields != null) {
+            renameFields.forEach((from, to) -> steps.add(values -> {
+                if (values.containsKey(from)) {
+                    values.put(to, values.remove(from));
+                }
+            }));
+        }
+
+        if (removeFields != null) {
+            removeFields.forEach(field -> steps.add(values -> values.remove(field)));
+        }
+
+        if (coerceTypes != null) {
+            coerceTypes.forEach((field, type) -> steps.add(values -> {
+                Object value = values.get(field);
+                if (value != null) {
+                    values.put(field, coerce(value, type));
+                }
+            }));
+        }
+
+        if (constantFields != null) {
+            constantFields.forEach((field, value) -> steps.add(values -> values.put(field, value)));
+        }
+
+        this.steps = steps.toArray(Consumer[]::new);
+    }
+
+    @Override
+    public Map<String, Object> apply(Map<String, Object> values) {
+        for (Consumer<Map<String, Object>> step : steps) {
+            step.accept(values);
+        }
+
+        return values;
+    }
+
+    private static ObjectId objectId(Object value) {
+        return value instanceof ObjectId objectId ? objectId : new ObjectId(value.toString());
+    }
+
+    static Object coerce(Object value, Load.FieldType type) {
+        return switch (type) {
+            case STRING -> value.toString();
+            case INT -> value instanceof Number number ? number.intValue() : Integer.parseInt(value.toString());
+            case LONG -> value instanceof Number number ? number.longValue() : Long.parseLong(value.toString());
+            case DOUBLE -> value instanceof Number number ? number.doubleValue() : Double.parseDouble(value.toString());
+            case DECIMAL -> new Decimal128(value instanceof BigDecimal decimal ? decimal : new BigDecimal(value.toString()));
+            case BOOLEAN -> value instanceof Boolean bool ? bool : Boolean.parseBoolean(value.toString());
+            case OBJECT_ID -> objectId(value);
+            case DATE -> switch (value) {
+                case Date date -> date;
+                case Instant instant -> Date.from(instant);
+                case ZonedDateTime dateTime -> Date.from(dateTime.toInstant());
+                case OffsetDateTime dateTime -> Date.from(dateTime.toInstant());
+                case Number epochMillis -> new Date(epochMillis.longValue());
+                default -> Date.from(Instant.parse(value.toString()));
+            };
+        };
+    }
+}
@@ -0,0 +1,259 @@
+package io.kestra.plugin.mongodb;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.bson.BsonDocument;
+
+import com.mongodb.MongoException;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoCollection;
+
+import io.kestra.core.exceptions.ResourceExpiredException;
+import io.kestra.core.models.executions.metrics.Counter;
+import io.kestra.core.runners.RunContext;
+import io.kestra.core.storages.kv.KVMetadata;
+import io.kestra.core.storages.kv.KVStore;
+import io.kestra.core.storages.kv.KVValue;
+import io.kestra.core.storages.kv.KVValueAndMetadata;
+
+/**
+ * Query results of Find and Aggregate kept in a worker-local LRU cache, optionally shared through the namespace KV store,
+ * for flows running the same small query over and over.
+ */
+final class ResultCache {
+    /**
+     * Bound of the worker-local cache, in rows over all the cached results.
+     */
+    static final long MAX_ROWS = 100_000;
+
+    private static final LruCache<String, Entry> LOCAL = new LruCache<>(MAX_ROWS, entry -> Math.max(entry.rows().size(), 1));
+
+    private ResultCache() {
+    }
+
+    /**
+     * Hash of everything the rows depend on: the cluster, the namespace and the rendered query.
+     */
+    static String key(RunContext runContext, String uri, String database, String collection, Object... query) throws Exception {
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+
+        digest.update(String.valueOf(runContext.flowInfo().tenantId()).getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        digest.update(uri.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        digest.update((database + "." + collection).getBytes(StandardCharsets.UTF_8));
+
+        for (Object part : query) {
+            digest.update((byte) 0);
+            digest.update((part instanceof BsonDocument document ? document.toJson() : String.valueOf(part)).getBytes(StandardCharsets.UTF_8));
+        }
+
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Rows cached under {@code key}, or the rows of {@code query} cached for {@code ttl} when there is no valid entry.
+     * Results with more than {@code maxRows} rows are returned but not cached.
+     *
+     * @param kv also read and write the entries in the namespace KV store, to share them between workers
+     * @param invalidateOnChange drop the entry when a change stream reports a write on the collection since it was cached, or when
+     *     it was cached without invalidation; collections only read by the query, e.g. through `$lookup`, aren't watched
+     */
+    static Result get(
+        RunContext runContext,
+        MongoDbConnection connection,
+        String database,
+        String collection,
+        String key,
+        Duration ttl,
+        boolean kv,
+        boolean invalidateOnChange,
+        int maxRows,
+        Query query
+    ) throws Exception {
+        Entry entry = read(runContext, key, kv);
+
+        // without invalidation, a hit never connects to MongoDB
+        if (entry != null && !invalidateOnChange) {
+            hit(runContext, "cache.hits", database, collection);
+
+            return new Result(entry.rows(), true);
+        }
+
+        try (MongoClient client = connection.client(runContext)) {
+            MongoCollection<BsonDocument> source = client.getDatabase(database).getCollection(collection, BsonDocument.class);
+
+            if (entry != null) {
+                // an entry cached without invalidation has no position to check the changes from
+                if (entry.resumeToken() != null && !changedSince(source, entry.resumeToken())) {
+                    hit(runContext, "cache.hits", database, collection);
+
+                    return new Result(entry.rows(), true);
+                }
+
+                runContext.logger().debug("Cached result invalidated by a change on {}.{}", database, collection);
+                remove(runContext, key, kv);
+            }
+
+            hit(runContext, "cache.misses", database, collection);
+
+            // the position is taken before the query so that writes racing with it invalidate the entry
+            String resumeToken = invalidateOnChange ? resumeToken(runContext, source) : null;
+            List<Object> rows = unmodifiable(query.fetch(source));
+
+            if (rows.size() <= maxRows && (!invalidateOnChange || resumeToken != null)) {
+                write(runContext, key, new Entry(rows, Instant.now().plus(ttl), resumeToken), ttl, kv);
+            }
+
+            return new Result(rows, false);
+        }
+    }
+
+    private static Entry read(RunContext runContext, String key, boolean kv) throws Exception {
+        Entry entry = LOCAL.get(key);
+
+        if (entry == null && kv) {
+            entry = readKv(runContext, key);
+
+            if (entry != null) {
+                LOCAL.put(key, entry);
+            }
+        }
+
+        if (entry != null && entry.expiresAt().isBefore(Instant.now())) {
+            LOCAL.remove(key);
+
+            return null;
+        }
+
+        return entry;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Entry readKv(RunContext runContext, String key) throws Exception {
+        KVStore kvStore = runContext.namespaceKv(runContext.flowInfo().namespace());
+
+        Optional<KVValue> value;
+        try {
+            value = kvStore.getValue(kvKey(key));
+        } catch (ResourceExpiredException e) {
+            return null;
+        }
+
+        return value
+            .map(KVValue::value)
+            .filter(Map.class::isInstance)
+            .map(Map.class::cast)
+            .map(map -> new Entry(
+                unmodifiable((List<Object>) map.get("rows")),
+                Instant.parse((String) map.get("expiresAt")),
+                (String) map.get("resumeToken")
+            ))
+            .orElse(null);
+    }
+
+    private static void write(RunContext runContext, String key, Entry entry, Duration ttl, boolean kv) throws Exception {
+        LOCAL.put(key, entry);
+
+        if (kv) {
+            Map<String, Object> value = new HashMap<>();
+            value.put("rows", entry.rows());
+            value.put("expiresAt", entry.expiresAt().toString());
+            value.put("resumeToken", entry.resumeToken());
+
+            runContext.namespaceKv(runContext.flowInfo().namespace())
+                .put(kvKey(key), new KVValueAndMetadata(new KVMetadata("MongoDB query result cache", ttl), value));
+        }
+    }
+
+    private static void remove(RunContext runContext, String key, boolean kv) throws Exception {
+        LOCAL.remove(key);
+
+        if (kv) {
+            runContext.namespaceKv(runContext.flowInfo().namespace()).delete(kvKey(key));
+        }
+    }
+
+    private static String kvKey(String key) {
+        return "mongodb_cache_" + key;
+    }
+
+    /**
+     * Current change stream position of the collection, or null when change streams aren't available, e.g. on a standalone server.
+     */
+    private static String resumeToken(RunContext runContext, MongoCollection<BsonDocument> collection) {
+        try (MongoChangeStreamCursor<?> cursor = collection.watch().cursor()) {
+            BsonDocument token = cursor.getResumeToken();
+
+            return token == null ? null : token.toJson();
+        } catch (MongoException e) {
+            runContext.logger().warn("Unable to open a change stream on {}, the result won't be cached: {}", collection.getNamespace(), e.getMessage());
+
+            return null;
+        }
+    }
+
+    private static boolean changedSince(MongoCollection<BsonDocument> collection, String resumeToken) {
+        try (MongoChangeStreamCursor<?> cursor = collection.watch()
+            .startAfter(BsonDocument.parse(resumeToken))
+            .maxAwaitTime(1, TimeUnit.MILLISECONDS)
+            .cursor()
+        ) {
+            return cursor.tryNext() != null;
+        } catch (MongoException e) {
+            // e.g. the position fell off the oplog
+            return true;
+        }
+    }
+
+    /**
+     * Deeply unmodifiable copy of the rows, as the cached ones are shared by every run hitting the entry.
+     */
+    @SuppressWarnings("unchecked")
+    static List<Object> unmodifiable(List<Object> rows) {
+        return (List<Object>) unmodifiableValue(rows);
+    }
+
+    private static Object unmodifiableValue(Object value) {
+        if (value instanceof Map<?, ?> map) {
+            Map<Object, Object> copy = new LinkedHashMap<>();
+            map.forEach((key, nested) -> copy.put(key, unmodifiableValue(nested)));
+
+            return Collections.unmodifiableMap(copy);
+        }
+
+        if (value instanceof List<?> list) {
+            // unlike List.copyOf, keeps null elements
+            return list.stream().map(ResultCache::unmodifiableValue).toList();
+        }
+
+        return value;
+    }
+
+    private static void hit(RunContext runContext, String name, String database, String collection) {
+        runContext.metric(Counter.of(name, 1, "database", database, "collection", collection));
+    }
+
+    @FunctionalInterface
+    interface Query {
+        List<Object> fetch(MongoCollection<BsonDocument> collection) throws Exception;
+    }
+
+    record Entry(List<Object> rows, Instant expiresAt, String resumeToken) {
+    }
+
+    record Result(List<Object> rows, boolean cached) {
+    }
+}
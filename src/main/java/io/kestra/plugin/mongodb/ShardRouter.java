@@ -0,0 +1,297 @@
+package io.kestra.plugin.mongodb;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.bson.BsonArray;
+import org.bson.BsonBoolean;
+import org.bson.BsonDocument;
+import org.bson.BsonInt32;
+import org.bson.BsonMaxKey;
+import org.bson.BsonMinKey;
+import org.bson.BsonNull;
+import org.bson.BsonString;
+import org.bson.BsonValue;
+import org.bson.conversions.Bson;
+
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.MongoCommandException;
+import com.mongodb.MongoNamespace;
+import com.mongodb.bulk.BulkWriteInsert;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.bulk.BulkWriteUpsert;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.InsertOneModel;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.WriteModel;
+
+/**
+ * Maps write models to the shard owning their chunk, from the chunk map stored in the config database.
+ * Lanes are the shard indexes, plus a last lane for models whose shard key can't be resolved (e.g. `updateMany` on a range).
+ */
+final class ShardRouter {
+    static final int STALE_CONFIG = 13388;
+
+    private final List<String> keyFields;
+    private final Supplier<NavigableMap<BsonDocument, String>> chunkSource;
+    private final List<String> shards;
+    private volatile NavigableMap<BsonDocument, String> chunks;
+
+    /**
+     * @param chunkSource reads the owning shard of each chunk, keyed by the chunk lower bound and sorted with {@link #compareKeys}
+     */
+    ShardRouter(List<String> keyFields, Supplier<NavigableMap<BsonDocument, String>> chunkSource) {
+        this.keyFields = keyFields;
+        this.chunkSource = chunkSource;
+        this.chunks = chunkSource.get();
+        this.shards = this.chunks.values().stream().distinct().sorted().toList();
+    }
+
+    /**
+     * @return null when the collection is not sharded.
+     */
+    static ShardRouter of(MongoClient client, MongoNamespace namespace) {
+        BsonDocument config = config(client, namespace);
+        if (config == null) {
+            return null;
+        }
+
+        BsonDocument key = config.getDocument("key");
+        if (isHashed(key)) {
+            throw new IllegalArgumentException("Shard-aware routing doesn't support the hashed shard key " + key.toJson() + " of " + namespace);
+        }
+
+        // chunks are referenced by collection uuid since MongoDB 5.0, by namespace before
+        Bson chunkFilter = config.containsKey("uuid") ? Filters.eq("uuid", config.get("uuid")) : Filters.eq("ns", namespace.getFullName());
+
+        return new ShardRouter(new ArrayList<>(key.keySet()), () -> readChunks(client, chunkFilter));
+    }
+
+    /**
+     * @return the shard key pattern, or null when the collection is not sharded.
+     */
+    static BsonDocument shardKey(MongoClient client, MongoNamespace namespace) {
+        BsonDocument config = config(client, namespace);
+
+        return config == null ? null : config.getDocument("key");
+    }
+
+    static boolean isHashed(BsonDocument shardKey) {
+        return shardKey.values().stream().anyMatch(BsonValue::isString);
+    }
+
+    private static BsonDocument config(MongoClient client, MongoNamespace namespace) {
+        BsonDocument config = client.getDatabase("config")
+            .getCollection("collections", BsonDocument.class)
+            .find(Filters.eq("_id", namespace.getFullName()))
+            .first();
+
+        if (config == null || config.getBoolean("dropped", BsonBoolean.FALSE).getValue()) {
+            return null;
+        }
+
+        return config;
+    }
+
+    /**
+     * Resolve the shard key of a write model, a missing field being stored as null on inserts.
+     *
+     * @return null when the model can target any shard, e.g. an `updateMany` on a range.
+     */
+    static BsonDocument key(WriteModel<Bson> model, List<String> fields) {
+        BsonDocument key = new BsonDocument();
+
+        for (String field : fields) {
+            BsonValue value = MongoDbService.keyOf(model, field);
+
+            if (value == null) {
+                if (!(model instanceof InsertOneModel<Bson>)) {
+                    return null;
+                }
+
+                value = BsonNull.VALUE;
+            }
+
+            key.append(field, value);
+        }
+
+        return key;
+    }
+
+    /**
+     * Split an empty sharded collection at the given shard key points and spread the resulting chunks round-robin across all shards.
+     */
+    static void split(MongoClient client, MongoNamespace namespace, List<BsonDocument> points) {
+        if (points.isEmpty()) {
+            return;
+        }
+
+        MongoDatabase admin = client.getDatabase("admin");
+        BsonString ns = new BsonString(namespace.getFullName());
+
+        for (BsonDocument point : points) {
+            admin.runCommand(new BsonDocument("split", ns).append("middle", point));
+        }
+
+        List<String> shards = admin.runCommand(new BsonDocument("listShards", new BsonInt32(1)), BsonDocument.class)
+            .getArray("shards")
+            .stream()
+            .map(shard -> shard.asDocument().getString("_id").getValue())
+            .sorted()
+            .toList();
+
+        ShardRouter router = of(client, namespace);
+
+        for (Move move : moves(points, shards, router.chunks)) {
+            admin.runCommand(
+                new BsonDocument("moveChunk", ns)
+                    .append("bounds", new BsonArray(List.of(move.min(), move.max())))
+                    .append("to", new BsonString(move.shard()))
+            );
+        }
+    }
+
+    /**
+     * Chunk moves spreading the chunks delimited by {@code points} round-robin across {@code shards}, skipping the chunks
+     * already on their target shard.
+     *
+     * @param owners current shard of each chunk, keyed by the chunk lower bound
+     */
+    static List<Move> moves(List<BsonDocument> points, List<String> shards, NavigableMap<BsonDocument, String> owners) {
+        BsonDocument lower = bound(points.getFirst(), new BsonMinKey());
+        BsonDocument upper = bound(points.getFirst(), new BsonMaxKey());
+
+        List<Move> moves = new ArrayList<>();
+        for (int i = 0; i <= points.size(); i++) {
+            BsonDocument min = i == 0 ? lower : points.get(i - 1);
+            BsonDocument max = i == points.size() ? upper : points.get(i);
+            String shard = shards.get(i % shards.size());
+
+            if (!shard.equals(owners.get(min))) {
+                moves.add(new Move(min, max, shard));
+            }
+        }
+
+        return moves;
+    }
+
+    private static BsonDocument bound(BsonDocument shape, BsonValue value) {
+        BsonDocument bound = new BsonDocument();
+        shape.keySet().forEach(field -> bound.append(field, value));
+
+        return bound;
+    }
+
+    List<String> shards() {
+        return shards;
+    }
+
+    int lanes() {
+        return shards.size() + 1;
+    }
+
+    int lane(WriteModel<Bson> model) {
+        BsonDocument key = key(model, keyFields);
+        if (key == null) {
+            return shards.size();
+        }
+
+        Map.Entry<BsonDocument, String> chunk = chunks.floorEntry(key);
+        int index = chunk == null ? -1 : shards.indexOf(chunk.getValue());
+
+        return index < 0 ? shards.size() : index;
+    }
+
+    void refresh() {
+        this.chunks = this.chunkSource.get();
+    }
+
+    /**
+     * Bulk writes refreshing the chunk map and retrying the remaining models when a shard rejects them with StaleConfig.
+     */
+    Function<List<WriteModel<Bson>>, BulkWriteResult> writer(MongoCollection<Bson> collection) {
+        return models -> {
+            try {
+                return collection.bulkWrite(models);
+            } catch (MongoBulkWriteException e) {
+                if (e.getWriteErrors().isEmpty() || e.getWriteErrors().stream().anyMatch(error -> error.getCode() != STALE_CONFIG)) {
+                    throw e;
+                }
+
+                this.refresh();
+
+                // ordered bulk writes stop at the first error, everything before it was applied
+                int applied = e.getWriteErrors().getFirst().getIndex();
+                BulkWriteResult retried = collection.bulkWrite(models.subList(applied, models.size()));
+
+                return merge(e.getWriteResult(), retried, applied);
+            } catch (MongoCommandException e) {
+                if (e.getErrorCode() != STALE_CONFIG) {
+                    throw e;
+                }
+
+                this.refresh();
+
+                return collection.bulkWrite(models);
+            }
+        };
+    }
+
+    private static NavigableMap<BsonDocument, String> readChunks(MongoClient client, Bson chunkFilter) {
+        NavigableMap<BsonDocument, String> chunks = new TreeMap<>(ShardRouter::compareKeys);
+
+        client.getDatabase("config")
+            .getCollection("chunks", BsonDocument.class)
+            .find(chunkFilter)
+            .projection(Projections.include("min", "shard"))
+            .forEach(chunk -> chunks.put(chunk.getDocument("min"), chunk.getString("shard").getValue()));
+
+        return chunks;
+    }
+
+    static int compareKeys(BsonDocument a, BsonDocument b) {
+        Iterator<BsonValue> left = a.values().iterator();
+        Iterator<BsonValue> right = b.values().iterator();
+
+        while (left.hasNext() && right.hasNext()) {
+            int compare = ExternalSorter.compare(left.next(), right.next());
+            if (compare != 0) {
+                return compare;
+            }
+        }
+
+        return Boolean.compare(left.hasNext(), right.hasNext());
+    }
+
+    /**
+     * Merge the result of an interrupted bulk write with the one of its retried remainder, starting at {@code offset} in the models.
+     */
+    static BulkWriteResult merge(BulkWriteResult first, BulkWriteResult second, int offset) {
+        List<BulkWriteUpsert> upserts = new ArrayList<>(first.getUpserts());
+        second.getUpserts().forEach(upsert -> upserts.add(new BulkWriteUpsert(upsert.getIndex() + offset, upsert.getId())));
+
+        List<BulkWriteInsert> inserts = new ArrayList<>(first.getInserts());
+        second.getInserts().forEach(insert -> inserts.add(new BulkWriteInsert(insert.getIndex() + offset, insert.getId())));
+
+        return BulkWriteResult.acknowledged(
+            first.getInsertedCount() + second.getInsertedCount(),
+            first.getMatchedCount() + second.getMatchedCount(),
+            first.getDeletedCount() + second.getDeletedCount(),
+            first.getModifiedCount() + second.getModifiedCount(),
+            upserts,
+            inserts
+        );
+    }
+
+    record Move(BsonDocument min, BsonDocument max, String shard) {
+    }
+}
@@ -1,8 +1,10 @@
 package io.kestra.plugin.mongodb;
 
 import java.io.BufferedInputStream;
+import java.time.Duration;
 import java.util.*;
 import java.util.Map;
+import java.util.stream.IntStream;
 
 import org.bson.Document;
 import org.junit.jupiter.api.BeforeEach;
@@ -19,9 +21,12 @@ import io.kestra.core.models.property.Property;
 import io.kestra.core.models.tasks.common.FetchType;
 import io.kestra.core.runners.RunContext;
 import io.kestra.core.serializers.FileSerde;
+import io.kestra.core.utils.IdUtils;
+import io.kestra.core.utils.TestsUtils;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 @KestraTest
 class AggregateTest extends MongoDbContainer {
@@ -433,4 +438,212 @@ class AggregateTest extends MongoDbContainer {
         assertThat(output.getSize(), is(4L));
         assertThat(output.getRows(), hasSize(4));
     }
-}
\ No newline at end of file
+
+    @SuppressWarnings("unchecked")
+    @Test
+    void testCollectionRegex() throws Exception {
+        RunContext runContext = runContextFactory.of();
+        String database = "ut_" + IdUtils.create().toLowerCase(Locale.ROOT);
+
+        try (MongoClient client = MongoClients.create(connectionUri)) {
+            for (int month = 1; month <= 3; month++) {
+                int count = month;
+                client.getDatabase(database).getCollection("sales_2024_0" + month).insertMany(
+                    IntStream.range(0, count).mapToObj(i -> new Document("amount", 10)).toList()
+                );
+            }
+            client.getDatabase(database).getCollection("sales_archive").insertOne(new Document("amount", 1000));
+        }
+
+        Aggregate aggregate = Aggregate.builder()
+            .connection(MongoDbConnection.builder().uri(Property.ofValue(connectionUri)).build())
+            .database(Property.ofValue(database))
+            .collection(Property.ofValue("sales_2024_\\d{2}"))
+            .collectionRegex(Property.ofValue(true))
+            .pipeline(Property.ofValue(List.of(
+                ImmutableMap.of("$group", ImmutableMap.of("_id", "total", "amount", ImmutableMap.of("$sum", "$amount")))
+            )))
+            .parallelism(Property.ofValue(2))
+            .build();
+
+        Aggregate.Output output = aggregate.run(runContext);
+
+        assertThat(output.getSize(), is(3L));
+        assertThat(output.getSizes().size(), is(3));
+        assertThat(
+            output.getRows().stream().mapToInt(row -> ((Number) ((Map<String, Object>) row).get("amount")).intValue()).sum(),
+            is(60)
+        );
+        assertThat(
+            output.getRows().stream().map(row -> ((Map<String, Object>) row).get("_namespace")).sorted().toList(),
+            contains(database + ".sales_2024_01", database + ".sales_2024_02", database + ".sales_2024_03")
+        );
+
+        aggregate = Aggregate.builder()
+            .connection(MongoDbConnection.builder().uri(Property.ofValue(connectionUri)).build())
+            .database(Property.ofValue(database))
+            .collection(Property.ofValue("sales_.*"))
+            .collectionRegex(Property.ofValue(true))
+            .pipeline(Property.ofValue(List.of(ImmutableMap.of("$match", ImmutableMap.of()))))
+            .splitByNamespace(Property.ofValue(true))
+            .build();
+
+        output = aggregate.run(runContext);
+
+        assertThat(output.getSize(), is(7L));
+        assertThat(output.getRows(), is(nullValue()));
+        assertThat(output.getRowsByNamespace().get(database + ".sales_2024_03"), hasSize(3));
+        assertThat(output.getRowsByNamespace().get(database + ".sales_archive"), hasSize(1));
+    }
+
+    @Test
+    void regexNamespace() throws Exception {
+        RunContext runContext = runContextFactory.of();
+
+        Aggregate all = Aggregate.builder()
+            .connection(MongoDbConnection.builder().uri(Property.ofValue(connectionUri)).build())
+            .database(Property.ofValue(".*"))
+            .databaseRegex(Property.ofValue(true))
+            .collection(Property.ofValue("system.version"))
+            .pipeline(Property.ofValue(List.of(ImmutableMap.of("$match", ImmutableMap.of()))))
+            .build();
+
+        assertThat(all.run(runContext).getSizes(), not(hasKey("admin.system.version")));
+
+        Aggregate admin = Aggregate.builder()
+            .connection(MongoDbConnection.builder().uri(Property.ofValue(connectionUri)).build())
+            .database(Property.ofValue("admin|none"))
+            .databaseRegex(Property.ofValue(true))
+            .collection(Property.ofValue("system.version"))
+            .pipeline(Property.ofValue(List.of(ImmutableMap.of("$match", ImmutableMap.of()))))
+            .build();
+
+        assertThat(admin.run(runContext).getSizes().keySet(), contains("admin.system.version"));
+
+        Aggregate out = Aggregate.builder()
+            .connection(MongoDbConnection.builder().uri(Property.ofValue(connectionUri)).build())
+            .database(Property.ofValue(DATABASE_NAME))
+            .collection(Property.ofValue(".*"))
+            .collectionRegex(Property.ofValue(true))
+            .pipeline(Property.ofValue(List.of(ImmutableMap.of("$out", "merged"))))
+            .build();
+
+        assertThrows(IllegalArgumentException.class, () -> out.run(runContext));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    void cache() throws Exception {
+        String database = "ut_" + IdUtils.create().toLowerCase(Locale.ROOT);
+
+        try (MongoClient client = MongoClients.create(connectionUri)) {
+            client.getDatabase(database).getCollection("sales").insertMany(List.of(
+                new Document("region", "eu").append("amount", 10),
+                new Document("region", "us").append("amount", 20)
+            ));
+        }
+
+        Aggregate aggregate = Aggregate.builder()
+            .id("cache_" + IdUtils.create())
+            .type(Aggregate.class.getName())
+            .connection(MongoDbConnection.builder().uri(Property.ofValue(connectionUri)).build())
+            .database(Property.ofValue(database))
+            .collection(Property.ofValue("sales"))
+            .pipeline(Property.ofValue(List.of(
+                Map.of("$group", Map.of("_id", "$region", "total", Map.of("$sum", "$amount"), "amounts", Map.of("$push", "$amount")))
+            )))
+            .cacheTtl(Property.ofValue(Duration.ofMinutes(5)))
+            .build();
+        RunContext runContext = TestsUtils.mockRunContext(runContextFactory, aggregate, Map.of());
+
+        Aggregate.Output output = aggregate.run(runContext);
+        assertThat(output.getCached(), is(false));
+        assertThat(output.getSize(), is(2L));
+
+        try (MongoClient client = MongoClients.create(connectionUri)) {
+            client.getDatabase(database).getCollection("sales").insertOne(new Document("region", "apac").append("amount", 30));
+        }
+
+        output = aggregate.run(runContext);
+        assertThat(output.getCached(), is(true));
+        assertThat(output.getSize(), is(2L));
+
+        // rows are shared by every run hitting the entry
+        Map<String, Object> row = (Map<String, Object>) output.getRows().getFirst();
+        assertThrows(UnsupportedOperationException.class, () -> row.put("total", 0));
+        assertThrows(UnsupportedOperationException.class, () -> ((List<Object>) row.get("amounts")).add(0));
+
+        // rows cached without invalidation have no change stream position, so they are queried again
+        Aggregate invalidated = Aggregate.builder()
+            .id(aggregate.getId())
+            .type(Aggregate.class.getName())
+            .connection(aggregate.getConnection())
+            .database(aggregate.getDatabase())
+            .collection(aggregate.getCollection())
+            .pipeline(aggregate.getPipeline())
+            .cacheTtl(aggregate.getCacheTtl())
+            .cacheInvalidateOnChange(Property.ofValue(true))
+            .build();
+
+        output = invalidated.run(runContext);
+        assertThat(output.getCached(), is(false));
+        assertThat(output.getSize(), is(3L));
+
+        output = invalidated.run(runContext);
+        assertThat(output.getCached(), is(true));
+        assertThat(output.getSize(), is(3L));
+
+        // a pipeline writing to a collection always runs
+        Aggregate out = Aggregate.builder()
+            .id(aggregate.getId())
+            .type(Aggregate.class.getName())
+            .connection(MongoDbConnection.builder().uri(Property.ofValue(connectionUri)).build())
+            .database(Property.ofValue(database))
+            .collection(Property.ofValue("sales"))
+            .pipeline(Property.ofValue(List.of(
+                Map.of("$group", Map.of("_id", "$region", "total", Map.of("$sum", "$amount"))),
+                Map.of("$out", "totals")
+            )))
+            .cacheTtl(Property.ofValue(Duration.ofMinutes(5)))
+            .build();
+
+        for (int i = 0; i < 2; i++) {
+            try (MongoClient client = MongoClients.create(connectionUri)) {
+                client.getDatabase(database).getCollection("totals").drop();
+            }
+
+            output = out.run(runContext);
+            assertThat(output.getCached(), not(is(true)));
+
+            try (MongoClient client = MongoClients.create(connectionUri)) {
+                assertThat(client.getDatabase(database).getCollection("totals").countDocuments(), is(3L));
+            }
+        }
+
+        Aggregate merge = Aggregate.builder()
+            .id(aggregate.getId())
+            .type(Aggregate.class.getName())
+            .connection(MongoDbConnection.builder().uri(Property.ofValue(connectionUri)).build())
+            .database(Property.ofValue(database))
+            .collection(Property.ofValue("sales"))
+            .pipeline(Property.ofValue(List.of(
+                Map.of("$group", Map.of("_id", "$region", "total", Map.of("$sum", "$amount"))),
+                Map.of("$merge", Map.of("into", "merged"))
+            )))
+            .cacheTtl(Property.ofValue(Duration.ofMinutes(5)))
+            .build();
+
+        for (int i = 0; i < 2; i++) {
+            try (MongoClient client = MongoClients.create(connectionUri)) {
+                client.getDatabase(database).getCollection("merged").drop();
+            }
+
+            output = merge.run(runContext);
+            assertThat(output.getCached(), not(is(true)));
+
+            try (MongoClient client = MongoClients.create(connectionUri)) {
+                assertThat(client.getDatabase(database).getCollection("merged").countDocuments(), is(3L));
+            }
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package io.kestra.plugin.mongodb;
+
+import java.time.Duration;
+
+import org.bson.BsonDocument;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+class BatchesTest {
+    @Test
+    void replicationLagOfHealthySecondaries() {
+        BsonDocument status = BsonDocument.parse("""
+            {"members": [
+                {"_id": 0, "stateStr": "PRIMARY", "health": 1.0, "optimeDate": {"$date": 100000}},
+                {"_id": 1, "stateStr": "SECONDARY", "health": 1.0, "optimeDate": {"$date": 97000}},
+                {"_id": 2, "stateStr": "SECONDARY", "health": 1.0, "optimeDate": {"$date": 40000}},
+                {"_id": 3, "stateStr": "SECONDARY", "health": 1.0, "optimeDate": {"$date": 10000}},
+                {"_id": 4, "stateStr": "ARBITER", "health": 1.0},
+                {"_id": 5, "stateStr": "(not reachable/healthy)", "health": 0.0, "optimeDate": {"$date": 0}},
+                {"_id": 6, "stateStr": "STARTUP2", "health": 1.0}
+            ]}
+            """);
+        BsonDocument config = BsonDocument.parse("""
+            {"members": [
+                {"_id": 0}, {"_id": 1},
+                {"_id": 2, "hidden": true, "priority": 0},
+                {"_id": 3, "secondaryDelaySecs": {"$numberLong": "3600"}, "priority": 0},
+                {"_id": 4, "arbiterOnly": true}, {"_id": 5}, {"_id": 6}
+            ]}
+            """);
+
+        // hidden and delayed members, the arbiter and unhealthy members are ignored
+        assertThat(Batches.replicationLag(status, config), is(Duration.ofSeconds(3)));
+    }
+
+    @Test
+    void replicationLagWithoutSecondary() {
+        BsonDocument status = BsonDocument.parse("""
+            {"members": [
+                {"_id": 0, "stateStr": "PRIMARY", "health": 1, "optimeDate": {"$date": 100000}},
+                {"_id": 1, "stateStr": "SECONDARY", "health": 1, "optimeDate": {"$date": 1000}}
+            ]}
+            """);
+        BsonDocument config = BsonDocument.parse("""
+            {"members": [{"_id": 0}, {"_id": 1, "slaveDelay": 60}]}
+            """);
+
+        assertThat(Batches.replicationLag(status, config), is(Duration.ZERO));
+    }
+}
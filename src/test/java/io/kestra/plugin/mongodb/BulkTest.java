@@ -6,10 +6,19 @@ import java.io.FileOutputStream;
 import java.io.OutputStream;
 import java.net.URI;
 import java.nio.charset.StandardCharsets;
+import java.util.List;
 import java.util.Locale;
 
+import org.bson.BsonArray;
+import org.bson.BsonDocument;
+import org.bson.BsonDouble;
+import org.bson.BsonInt32;
+import org.bson.BsonInt64;
+import org.bson.Document;
 import org.junit.jupiter.api.Test;
 
+import com.mongodb.client.MongoClient;
+
 import io.kestra.core.junit.annotations.KestraTest;
 import io.kestra.core.models.property.Property;
 import io.kestra.core.runners.RunContext;
@@ -20,7 +29,9 @@ import io.kestra.core.utils.IdUtils;
 import jakarta.inject.Inject;
 
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 @KestraTest
 class BulkTest extends MongoDbContainer {
@@ -93,4 +104,141 @@ class BulkTest extends MongoDbContainer {
         assertThat(runContext.metrics().stream().filter(e -> e.getName().equals("requests.count")).findFirst().orElseThrow().getValue(), is(1D));
         assertThat(runContext.metrics().stream().filter(e -> e.getName().equals("records")).findFirst().orElseThrow().getValue(), is(9D));
     }
+
+    @Test
+    void lanes() throws Exception {
+        RunContext runContext = runContextFactory.of();
+        String database = "ut_" + IdUtils.create().toLowerCase(Locale.ROOT);
+
+        File tempFile = File.createTempFile(this.getClass().getSimpleName().toLowerCase() + "_lanes_", ".trs");
+        try (OutputStream output = new FileOutputStream(tempFile)) {
+            for (int i = 0; i < 100; i++) {
+                output.write(("{ \"insertOne\": { \"_id\": " + i + ", \"status\": \"new\" } }\n").getBytes(StandardCharsets.UTF_8));
+            }
+            // updates depend on the insert of the same key being applied first
+            for (int i = 0; i < 100; i++) {
+                output.write(("{ \"updateOne\": { \"filter\": { \"_id\": " + i + " }, \"update\": { \"$set\": { \"status\": \"done\" } } } }\n").getBytes(StandardCharsets.UTF_8));
+            }
+        }
+
+        URI uri = storageInterface.put(TenantService.MAIN_TENANT, null, URI.create("/" + IdUtils.create() + ".ion"), new FileInputStream(tempFile));
+
+        Bulk put = Bulk.builder()
+            .connection(MongoDbConnection.builder().uri(Property.ofValue(connectionUri)).build())
+            .database(Property.ofValue(database))
+            .collection(Property.ofValue("bulk_lanes"))
+            .from(Property.ofValue(uri.toString()))
+            .chunk(Property.ofValue(10))
+            .lanes(Property.ofValue(4))
+            .build();
+
+        Bulk.Output runOutput = put.run(runContext);
+
+        assertThat(runOutput.getSize(), is(200L));
+        assertThat(runOutput.getInsertedCount(), is(100));
+        assertThat(runOutput.getModifiedCount(), is(100));
+
+        try (MongoClient client = getMongoClient()) {
+            assertThat(client.getDatabase(database).getCollection("bulk_lanes").countDocuments(new Document("status", "done")), is(100L));
+        }
+    }
+
+    @Test
+    void namespaced() throws Exception {
+        RunContext runContext = runContextFactory.of();
+        String database = "ut_" + IdUtils.create().toLowerCase(Locale.ROOT);
+
+        File tempFile = File.createTempFile(this.getClass().getSimpleName().toLowerCase() + "_namespaced_", ".trs");
+        try (OutputStream output = new FileOutputStream(tempFile)) {
+            output.write(("{ \"namespace\": \"orders\", \"insertOne\": { \"_id\": 1, \"status\": \"NEW\" } }\n").getBytes(StandardCharsets.UTF_8));
+            output.write(("{ \"namespace\": \"" + database + ".payments\", \"insertOne\": { \"_id\": 10, \"order\": 1 } }\n").getBytes(StandardCharsets.UTF_8));
+            output.write(("{ \"namespace\": \"orders\", \"updateOne\": { \"filter\": { \"_id\": 1 }, \"update\": { \"$set\": { \"status\": \"PAID\" } } } }\n").getBytes(StandardCharsets.UTF_8));
+            output.write(("{ \"insertOne\": { \"_id\": 100, \"type\": \"audit\" } }\n").getBytes(StandardCharsets.UTF_8));
+        }
+
+        URI uri = storageInterface.put(TenantService.MAIN_TENANT, null, URI.create("/" + IdUtils.create() + ".ion"), new FileInputStream(tempFile));
+
+        Bulk put = Bulk.builder()
+            .connection(MongoDbConnection.builder().uri(Property.ofValue(connectionUri)).build())
+            .database(Property.ofValue(database))
+            .collection(Property.ofValue("events"))
+            .from(Property.ofValue(uri.toString()))
+            .namespaced(Property.ofValue(true))
+            .build();
+
+        Bulk.Output runOutput = put.run(runContext);
+
+        assertThat(runOutput.getSize(), is(4L));
+        assertThat(runOutput.getInsertedCount(), is(3));
+        assertThat(runOutput.getModifiedCount(), is(1));
+
+        try (MongoClient client = getMongoClient()) {
+            assertThat(client.getDatabase(database).getCollection("orders").countDocuments(new Document("status", "PAID")), is(1L));
+            assertThat(client.getDatabase(database).getCollection("payments").countDocuments(), is(1L));
+            assertThat(client.getDatabase(database).getCollection("events").countDocuments(), is(1L));
+        }
+    }
+
+    @Test
+    void namespacedRejectsSingleCollectionOptions() throws Exception {
+        Bulk put = Bulk.builder()
+            .connection(MongoDbConnection.builder().uri(Property.ofValue(connectionUri)).build())
+            .database(Property.ofValue("ut_namespaced"))
+            .collection(Property.ofValue("events"))
+            .from(Property.ofValue("kestra://unused.ion"))
+            .namespaced(Property.ofValue(true))
+            .sortKey(Property.ofValue("_id"))
+            .indexStrategy(Property.ofValue(AbstractLoad.IndexStrategy.DEFER))
+            .build();
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> put.run(runContextFactory.of()));
+        assertThat(e.getMessage(), containsString("sortKey, indexStrategy"));
+    }
+
+    @Test
+    void shardAwareOnUnshardedCollection() throws Exception {
+        RunContext runContext = runContextFactory.of();
+        String database = "ut_" + IdUtils.create().toLowerCase(Locale.ROOT);
+
+        File tempFile = File.createTempFile(this.getClass().getSimpleName().toLowerCase() + "_shard_", ".trs");
+        try (OutputStream output = new FileOutputStream(tempFile)) {
+            for (int i = 0; i < 20; i++) {
+                output.write(("{ \"insertOne\": { \"_id\": " + i + " } }\n").getBytes(StandardCharsets.UTF_8));
+            }
+        }
+
+        URI uri = storageInterface.put(TenantService.MAIN_TENANT, null, URI.create("/" + IdUtils.create() + ".ion"), new FileInputStream(tempFile));
+
+        Bulk put = Bulk.builder()
+            .connection(MongoDbConnection.builder().uri(Property.ofValue(connectionUri)).build())
+            .database(Property.ofValue(database))
+            .collection(Property.ofValue("bulk_shard"))
+            .from(Property.ofValue(uri.toString()))
+            .shardAware(Property.ofValue(true))
+            .build();
+
+        Bulk.Output runOutput = put.run(runContext);
+
+        // the collection is not sharded, writes go through the regular ordered path
+        assertThat(runOutput.getInsertedCount(), is(20));
+        assertThat(runContext.metrics().stream().noneMatch(e -> e.getName().startsWith("shard.")), is(true));
+    }
+
+    @Test
+    void laneHash() {
+        int one = Bulk.laneHash(new BsonInt32(1));
+
+        assertThat(Bulk.laneHash(new BsonInt64(1L)), is(one));
+        assertThat(Bulk.laneHash(new BsonDouble(1.0)), is(one));
+        assertThat(Bulk.laneHash(new BsonDocument("$eq", new BsonInt64(1L))), is(one));
+
+        // can match several documents, always the first lane
+        assertThat(Bulk.laneHash(new BsonDocument("$in", new BsonArray(List.of(new BsonInt32(1), new BsonInt32(2))))), is(0));
+        assertThat(Bulk.laneHash(new BsonDocument("$gt", new BsonInt32(1))), is(0));
+        assertThat(Bulk.laneHash(null), is(0));
+
+        // an embedded document key is a plain value
+        BsonDocument key = new BsonDocument("a", new BsonInt32(1));
+        assertThat(Bulk.laneHash(key), is(key.hashCode()));
+    }
 }
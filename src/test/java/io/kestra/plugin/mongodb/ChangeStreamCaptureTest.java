@@ -0,0 +1,75 @@
+package io.kestra.plugin.mongodb;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Locale;
+
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+
+import com.mongodb.client.MongoClient;
+
+import io.kestra.core.junit.annotations.KestraTest;
+import io.kestra.core.models.property.Property;
+import io.kestra.core.runners.RunContext;
+import io.kestra.core.utils.IdUtils;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+
+@KestraTest
+class ChangeStreamCaptureTest extends MongoDbContainer {
+    @Test
+    void run() throws Exception {
+        RunContext runContext = runContextFactory.of();
+        String database = "ut_" + IdUtils.create().toLowerCase(Locale.ROOT);
+        Instant start = Instant.now().minusSeconds(1);
+
+        try (MongoClient client = getMongoClient()) {
+            client.getDatabase(database).getCollection("events").insertMany(List.of(
+                new Document("_id", 1).append("name", "john"),
+                new Document("_id", 2).append("name", "jane"),
+                new Document("_id", 3).append("name", "doe")
+            ));
+        }
+
+        ChangeStreamCapture task = ChangeStreamCapture.builder()
+            .connection(MongoDbConnection.builder().uri(Property.ofValue(connectionUri)).build())
+            .database(Property.ofValue(database))
+            .collection(Property.ofValue("events"))
+            .startAtOperationTime(Property.ofValue(start.toString()))
+            .maxEvents(Property.ofValue(2))
+            .maxDuration(Property.ofValue(Duration.ofSeconds(30)))
+            .format(Property.ofValue(DocumentFormat.NDJSON))
+            .build();
+
+        ChangeStreamCapture.Output output = task.run(runContext);
+
+        assertThat(output.getSize(), is(2L));
+        assertThat(output.getResumeToken(), notNullValue());
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(runContext.storage().getFile(output.getUri())))) {
+            List<BsonDocument> events = reader.lines().map(BsonDocument::parse).toList();
+            assertThat(events.size(), is(2));
+            assertThat(events.getFirst().getDocument("fullDocument").getString("name").getValue(), is("john"));
+        }
+
+        // resume after the second event
+        ChangeStreamCapture resumed = ChangeStreamCapture.builder()
+            .connection(MongoDbConnection.builder().uri(Property.ofValue(connectionUri)).build())
+            .database(Property.ofValue(database))
+            .collection(Property.ofValue("events"))
+            .resumeToken(Property.ofValue(output.getResumeToken()))
+            .maxEvents(Property.ofValue(10))
+            .maxDuration(Property.ofValue(Duration.ofSeconds(3)))
+            .build();
+
+        ChangeStreamCapture.Output resumedOutput = resumed.run(runContext);
+        assertThat(resumedOutput.getSize(), is(1L));
+    }
+}
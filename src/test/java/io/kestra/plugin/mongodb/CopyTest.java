@@ -0,0 +1,112 @@
+package io.kestra.plugin.mongodb;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.model.Indexes;
+
+import io.kestra.core.junit.annotations.KestraTest;
+import io.kestra.core.models.property.Property;
+import io.kestra.core.runners.RunContext;
+import io.kestra.core.utils.IdUtils;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.is;
+
+@KestraTest
+class CopyTest extends MongoDbContainer {
+    private String database;
+
+    @BeforeEach
+    void setUp() {
+        database = "ut_" + IdUtils.create().toLowerCase(Locale.ROOT);
+
+        try (MongoClient client = getMongoClient()) {
+            List<Document> documents = new ArrayList<>();
+            for (int i = 0; i < 500; i++) {
+                documents.add(new Document("_id", i).append("even", i % 2 == 0));
+            }
+            client.getDatabase(database).getCollection("source").insertMany(documents);
+        }
+    }
+
+    @Test
+    void serverSide() throws Exception {
+        RunContext runContext = runContextFactory.of();
+
+        Copy.Output output = Copy.builder()
+            .connection(MongoDbConnection.builder().uri(Property.ofValue(connectionUri)).build())
+            .database(Property.ofValue(database))
+            .collection(Property.ofValue("source"))
+            .filter(Map.of("even", true))
+            .targetCollection(Property.ofValue("target"))
+            .build()
+            .run(runContext);
+
+        assertThat(output.getServerSide(), is(true));
+        try (MongoClient client = getMongoClient()) {
+            assertThat(client.getDatabase(database).getCollection("target").countDocuments(), is(250L));
+        }
+    }
+
+    @Test
+    void streamed() throws Exception {
+        RunContext runContext = runContextFactory.of();
+        // a different connection string forces the client-side streaming path
+        String targetUri = connectionUri + (connectionUri.contains("?") ? "&" : "/?") + "appName=copy";
+
+        Copy.Output output = Copy.builder()
+            .connection(MongoDbConnection.builder().uri(Property.ofValue(connectionUri)).build())
+            .database(Property.ofValue(database))
+            .collection(Property.ofValue("source"))
+            .targetConnection(MongoDbConnection.builder().uri(Property.ofValue(targetUri)).build())
+            .targetCollection(Property.ofValue("target"))
+            .writeMode(Property.ofValue(Copy.WriteMode.REPLACE))
+            .parallelism(Property.ofValue(3))
+            .chunk(Property.ofValue(100))
+            .build()
+            .run(runContext);
+
+        assertThat(output.getServerSide(), is(false));
+        assertThat(output.getSize(), is(500L));
+        try (MongoClient client = getMongoClient()) {
+            assertThat(client.getDatabase(database).getCollection("target").countDocuments(), is(500L));
+        }
+    }
+
+    @Test
+    void streamedOverwriteKeepsIndexes() throws Exception {
+        RunContext runContext = runContextFactory.of();
+        String targetUri = connectionUri + (connectionUri.contains("?") ? "&" : "/?") + "appName=copy";
+
+        try (MongoClient client = getMongoClient()) {
+            client.getDatabase(database).getCollection("target").insertOne(new Document("_id", "stale"));
+            client.getDatabase(database).getCollection("target").createIndex(Indexes.ascending("even"));
+        }
+
+        Copy.Output output = Copy.builder()
+            .connection(MongoDbConnection.builder().uri(Property.ofValue(connectionUri)).build())
+            .database(Property.ofValue(database))
+            .collection(Property.ofValue("source"))
+            .targetConnection(MongoDbConnection.builder().uri(Property.ofValue(targetUri)).build())
+            .targetCollection(Property.ofValue("target"))
+            .writeMode(Property.ofValue(Copy.WriteMode.OVERWRITE))
+            .build()
+            .run(runContext);
+
+        assertThat(output.getSize(), is(500L));
+        try (MongoClient client = getMongoClient()) {
+            assertThat(client.getDatabase(database).getCollection("target").countDocuments(), is(500L));
+            assertThat(client.getDatabase(database).getCollection("target").listIndexes().map(index -> index.getString("name")).into(new ArrayList<>()), containsInAnyOrder("_id_", "even_1"));
+            assertThat(client.getDatabase(database).listCollectionNames().into(new ArrayList<>()), containsInAnyOrder("source", "target"));
+        }
+    }
+}
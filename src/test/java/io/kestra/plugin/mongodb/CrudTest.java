@@ -1,8 +1,19 @@
 package io.kestra.plugin.mongodb;
 
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.time.Duration;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.stream.IntStream;
+
+import org.bson.BsonDocument;
+import org.bson.BsonInt32;
+import org.bson.Document;
 
 import org.junit.jupiter.api.Test;
 
@@ -10,13 +21,22 @@ import com.google.common.collect.ImmutableMap;
 
 import io.kestra.core.models.property.Property;
 import io.kestra.core.runners.RunContext;
+import io.kestra.core.serializers.FileSerde;
+import io.kestra.core.storages.StorageInterface;
+import io.kestra.core.tenant.TenantService;
 import io.kestra.core.utils.IdUtils;
+import io.kestra.core.utils.TestsUtils;
+
+import jakarta.inject.Inject;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
 
 class CrudTest extends MongoDbContainer {
 
+    @Inject
+    private StorageInterface storageInterface;
+
     @SuppressWarnings("unchecked")
     @Test
     void run() throws Exception {
@@ -111,4 +131,337 @@ class CrudTest extends MongoDbContainer {
         Delete.Output deleteOutput = delete.run(runContext);
         assertThat(deleteOutput.getDeletedCount(), is(1L));
     }
+
+    @Test
+    void batchedDelete() throws Exception {
+        RunContext runContext = runContextFactory.of();
+        String database = "ut_" + IdUtils.create().toLowerCase(Locale.ROOT);
+
+        getMongoClient().getDatabase(database).getCollection("events").insertMany(
+            IntStream.range(0, 25).mapToObj(i -> new Document("_id", i).append("odd", i % 2 == 1)).toList()
+        );
+
+        Delete delete = Delete.builder()
+            .connection(MongoDbConnection.builder().uri(Property.ofValue(connectionUri)).build())
+            .database(Property.ofValue(database))
+            .collection(Property.ofValue("events"))
+            .operation(Property.ofValue(Delete.Operation.DELETE_MANY))
+            .filter(ImmutableMap.of("odd", true))
+            .batchSize(Property.ofValue(5))
+            .pause(Property.ofValue(Duration.ofMillis(10)))
+            .maxReplicationLag(Property.ofValue(Duration.ofSeconds(10)))
+            .build();
+
+        Delete.Output deleteOutput = delete.run(runContext);
+        assertThat(deleteOutput.getDeletedCount(), is(12L));
+        assertThat(deleteOutput.getBatches(), is(3));
+        assertThat(getMongoClient().getDatabase(database).getCollection("events").countDocuments(), is(13L));
+    }
+
+    @Test
+    void batchedDeleteIgnoresCheckpointOfAnotherFilter() throws Exception {
+        String database = "ut_" + IdUtils.create().toLowerCase(Locale.ROOT);
+
+        getMongoClient().getDatabase(database).getCollection("events").insertMany(
+            IntStream.range(0, 25).mapToObj(i -> new Document("_id", i).append("odd", i % 2 == 1)).toList()
+        );
+
+        Delete delete = Delete.builder()
+            .id("purge_" + IdUtils.create())
+            .type(Delete.class.getName())
+            .connection(MongoDbConnection.builder().uri(Property.ofValue(connectionUri)).build())
+            .database(Property.ofValue(database))
+            .collection(Property.ofValue("events"))
+            .operation(Property.ofValue(Delete.Operation.DELETE_MANY))
+            .filter(ImmutableMap.of("odd", true))
+            .batchSize(Property.ofValue(5))
+            .resume(Property.ofValue(true))
+            .build();
+
+        RunContext runContext = TestsUtils.mockRunContext(runContextFactory, delete, Map.of());
+
+        // left by a stopped run deleting the even documents
+        String stateKey = MongoDbService.stateKey(runContext, delete.getId(), "checkpoint");
+        Batches.checkpoint(runContext, stateKey, BsonDocument.parse("{\"odd\": false}"), new BsonInt32(20));
+
+        Delete.Output deleteOutput = delete.run(runContext);
+        assertThat(deleteOutput.getDeletedCount(), is(12L));
+        assertThat(MongoDbService.readState(runContext, stateKey).isEmpty(), is(true));
+
+        // a checkpoint of the same filter is resumed
+        Batches.checkpoint(runContext, stateKey, BsonDocument.parse("{\"odd\": false}"), new BsonInt32(20));
+        Delete even = Delete.builder()
+            .id(delete.getId())
+            .type(Delete.class.getName())
+            .connection(MongoDbConnection.builder().uri(Property.ofValue(connectionUri)).build())
+            .database(Property.ofValue(database))
+            .collection(Property.ofValue("events"))
+            .operation(Property.ofValue(Delete.Operation.DELETE_MANY))
+            .filter(ImmutableMap.of("odd", false))
+            .batchSize(Property.ofValue(5))
+            .resume(Property.ofValue(true))
+            .build();
+
+        assertThat(even.run(runContext).getDeletedCount(), is(2L));
+    }
+
+    @Test
+    void batchedUpdateMany() throws Exception {
+        RunContext runContext = runContextFactory.of();
+        String database = "ut_" + IdUtils.create().toLowerCase(Locale.ROOT);
+
+        getMongoClient().getDatabase(database).getCollection("events").insertMany(
+            IntStream.range(0, 25).mapToObj(i -> new Document("_id", i).append("odd", i % 2 == 1)).toList()
+        );
+
+        Update update = Update.builder()
+            .connection(MongoDbConnection.builder().uri(Property.ofValue(connectionUri)).build())
+            .database(Property.ofValue(database))
+            .collection(Property.ofValue("events"))
+            .operation(Property.ofValue(Update.Operation.UPDATE_MANY))
+            .filter(ImmutableMap.of("odd", true))
+            .document("{\"$set\": {\"flagged\": true}}")
+            .batchSize(Property.ofValue(4))
+            .concurrency(Property.ofValue(2))
+            .build();
+
+        Update.Output updateOutput = update.run(runContext);
+        assertThat(updateOutput.getMatchedCount(), is(12L));
+        assertThat(updateOutput.getModifiedCount(), is(12L));
+        assertThat(updateOutput.getBatches(), is(3));
+        assertThat(getMongoClient().getDatabase(database).getCollection("events").countDocuments(new Document("flagged", true)), is(12L));
+    }
+
+    @Test
+    void batchedUpdateManyResume() throws Exception {
+        String database = "ut_" + IdUtils.create().toLowerCase(Locale.ROOT);
+
+        getMongoClient().getDatabase(database).getCollection("events").insertMany(
+            IntStream.range(0, 25).mapToObj(i -> new Document("_id", i).append("odd", i % 2 == 1)).toList()
+        );
+
+        Update update = Update.builder()
+            .id("flag_" + IdUtils.create())
+            .type(Update.class.getName())
+            .connection(MongoDbConnection.builder().uri(Property.ofValue(connectionUri)).build())
+            .database(Property.ofValue(database))
+            .collection(Property.ofValue("events"))
+            .operation(Property.ofValue(Update.Operation.UPDATE_MANY))
+            .filter(ImmutableMap.of("odd", true))
+            .document("{\"$set\": {\"flagged\": true}}")
+            .batchSize(Property.ofValue(4))
+            .resume(Property.ofValue(true))
+            .build();
+
+        RunContext runContext = TestsUtils.mockRunContext(runContextFactory, update, Map.of());
+        String stateKey = MongoDbService.stateKey(runContext, update.getId(), "checkpoint");
+        BsonDocument filter = BsonDocument.parse("{\"odd\": true}");
+
+        // a checkpoint of the same filter but another document is ignored
+        Batches.checkpoint(runContext, stateKey, new BsonDocument("filter", filter).append("update", BsonDocument.parse("{\"$set\": {\"flagged\": false}}")), new BsonInt32(15));
+        assertThat(update.run(runContext).getModifiedCount(), is(12L));
+        assertThat(MongoDbService.readState(runContext, stateKey).isEmpty(), is(true));
+
+        // a checkpoint of the same query is resumed
+        getMongoClient().getDatabase(database).getCollection("events").updateMany(new Document(), new Document("$unset", new Document("flagged", "")));
+        Batches.checkpoint(runContext, stateKey, new BsonDocument("filter", filter).append("update", BsonDocument.parse("{\"$set\": {\"flagged\": true}}")), new BsonInt32(15));
+        assertThat(update.run(runContext).getModifiedCount(), is(4L));
+    }
+
+    @Test
+    void deleteByKeys() throws Exception {
+        RunContext runContext = runContextFactory.of();
+        String database = "ut_" + IdUtils.create().toLowerCase(Locale.ROOT);
+
+        getMongoClient().getDatabase(database).getCollection("events").insertMany(
+            IntStream.range(0, 25).mapToObj(i -> new Document("_id", i)).toList()
+        );
+
+        File tempFile = File.createTempFile(this.getClass().getSimpleName().toLowerCase() + "_keys_", ".trs");
+        try (OutputStream output = new FileOutputStream(tempFile)) {
+            for (int i = 0; i < 30; i += 3) {
+                FileSerde.write(output, i);
+            }
+        }
+        URI uri = storageInterface.put(TenantService.MAIN_TENANT, null, URI.create("/" + IdUtils.create() + ".ion"), new FileInputStream(tempFile));
+
+        Delete delete = Delete.builder()
+            .connection(MongoDbConnection.builder().uri(Property.ofValue(connectionUri)).build())
+            .database(Property.ofValue(database))
+            .collection(Property.ofValue("events"))
+            .from(Property.ofValue(uri.toString()))
+            .batchSize(Property.ofValue(4))
+            .concurrency(Property.ofValue(2))
+            .build();
+
+        Delete.Output deleteOutput = delete.run(runContext);
+        assertThat(deleteOutput.getDeletedCount(), is(9L));
+        assertThat(deleteOutput.getBatches(), is(3));
+        assertThat(getMongoClient().getDatabase(database).getCollection("events").countDocuments(), is(16L));
+    }
+
+    @Test
+    void deleteOneByKeys() throws Exception {
+        RunContext runContext = runContextFactory.of();
+        String database = "ut_" + IdUtils.create().toLowerCase(Locale.ROOT);
+
+        // two documents per sku
+        getMongoClient().getDatabase(database).getCollection("stock").insertMany(
+            IntStream.range(0, 10).mapToObj(i -> new Document("sku", "s" + (i % 5))).toList()
+        );
+
+        File tempFile = File.createTempFile(this.getClass().getSimpleName().toLowerCase() + "_skus_", ".trs");
+        try (OutputStream output = new FileOutputStream(tempFile)) {
+            for (int i = 0; i < 3; i++) {
+                FileSerde.write(output, "s" + i);
+            }
+        }
+        URI uri = storageInterface.put(TenantService.MAIN_TENANT, null, URI.create("/" + IdUtils.create() + ".ion"), new FileInputStream(tempFile));
+
+        Delete deleteOne = Delete.builder()
+            .connection(MongoDbConnection.builder().uri(Property.ofValue(connectionUri)).build())
+            .database(Property.ofValue(database))
+            .collection(Property.ofValue("stock"))
+            .from(Property.ofValue(uri.toString()))
+            .key(Property.ofValue("sku"))
+            .build();
+
+        assertThat(deleteOne.run(runContext).getDeletedCount(), is(3L));
+        assertThat(getMongoClient().getDatabase(database).getCollection("stock").countDocuments(), is(7L));
+
+        Delete deleteMany = Delete.builder()
+            .connection(MongoDbConnection.builder().uri(Property.ofValue(connectionUri)).build())
+            .database(Property.ofValue(database))
+            .collection(Property.ofValue("stock"))
+            .operation(Property.ofValue(Delete.Operation.DELETE_MANY))
+            .from(Property.ofValue(uri.toString()))
+            .key(Property.ofValue("sku"))
+            .build();
+
+        assertThat(deleteMany.run(runContext).getDeletedCount(), is(3L));
+        assertThat(getMongoClient().getDatabase(database).getCollection("stock").countDocuments(), is(4L));
+    }
+
+    @Test
+    void updateByKeys() throws Exception {
+        RunContext runContext = runContextFactory.of();
+        String database = "ut_" + IdUtils.create().toLowerCase(Locale.ROOT);
+
+        getMongoClient().getDatabase(database).getCollection("orders").insertMany(
+            IntStream.range(0, 10).mapToObj(i -> new Document("orderId", "o" + i)).toList()
+        );
+
+        File tempFile = File.createTempFile(this.getClass().getSimpleName().toLowerCase() + "_patches_", ".trs");
+        try (OutputStream output = new FileOutputStream(tempFile)) {
+            for (int i = 0; i < 6; i++) {
+                FileSerde.write(output, ImmutableMap.of("orderId", "o" + i, "status", i % 2 == 0 ? "shipped" : "cancelled"));
+            }
+        }
+        URI uri = storageInterface.put(TenantService.MAIN_TENANT, null, URI.create("/" + IdUtils.create() + ".ion"), new FileInputStream(tempFile));
+
+        Update update = Update.builder()
+            .connection(MongoDbConnection.builder().uri(Property.ofValue(connectionUri)).build())
+            .database(Property.ofValue(database))
+            .collection(Property.ofValue("orders"))
+            .from(Property.ofValue(uri.toString()))
+            .key(Property.ofValue("orderId"))
+            .build();
+
+        Update.Output updateOutput = update.run(runContext);
+        assertThat(updateOutput.getMatchedCount(), is(6L));
+        assertThat(updateOutput.getModifiedCount(), is(6L));
+        assertThat(updateOutput.getBatches(), is(1));
+        assertThat(getMongoClient().getDatabase(database).getCollection("orders").countDocuments(new Document("status", "shipped")), is(3L));
+        assertThat(getMongoClient().getDatabase(database).getCollection("orders").countDocuments(new Document("status", "cancelled")), is(3L));
+    }
+
+    @Test
+    void updateOneAndReplaceOneByKeys() throws Exception {
+        RunContext runContext = runContextFactory.of();
+        String database = "ut_" + IdUtils.create().toLowerCase(Locale.ROOT);
+
+        // two documents per sku
+        getMongoClient().getDatabase(database).getCollection("stock").insertMany(
+            IntStream.range(0, 10).mapToObj(i -> new Document("sku", "s" + (i % 5)).append("count", 1)).toList()
+        );
+
+        File tempFile = File.createTempFile(this.getClass().getSimpleName().toLowerCase() + "_skus_", ".trs");
+        try (OutputStream output = new FileOutputStream(tempFile)) {
+            for (int i = 0; i < 3; i++) {
+                FileSerde.write(output, "s" + i);
+            }
+        }
+        URI uri = storageInterface.put(TenantService.MAIN_TENANT, null, URI.create("/" + IdUtils.create() + ".ion"), new FileInputStream(tempFile));
+
+        Update updateOne = Update.builder()
+            .connection(MongoDbConnection.builder().uri(Property.ofValue(connectionUri)).build())
+            .database(Property.ofValue(database))
+            .collection(Property.ofValue("stock"))
+            .from(Property.ofValue(uri.toString()))
+            .key(Property.ofValue("sku"))
+            .document(Map.of("$inc", Map.of("count", 1)))
+            .build();
+
+        assertThat(updateOne.run(runContext).getModifiedCount(), is(3L));
+        assertThat(getMongoClient().getDatabase(database).getCollection("stock").countDocuments(new Document("count", 2)), is(3L));
+
+        File recordsFile = File.createTempFile(this.getClass().getSimpleName().toLowerCase() + "_records_", ".trs");
+        try (OutputStream output = new FileOutputStream(recordsFile)) {
+            FileSerde.write(output, ImmutableMap.of("sku", "s4", "count", 0));
+        }
+        URI recordsUri = storageInterface.put(TenantService.MAIN_TENANT, null, URI.create("/" + IdUtils.create() + ".ion"), new FileInputStream(recordsFile));
+
+        Update replaceOne = Update.builder()
+            .connection(MongoDbConnection.builder().uri(Property.ofValue(connectionUri)).build())
+            .database(Property.ofValue(database))
+            .collection(Property.ofValue("stock"))
+            .operation(Property.ofValue(Update.Operation.REPLACE_ONE))
+            .from(Property.ofValue(recordsUri.toString()))
+            .key(Property.ofValue("sku"))
+            .build();
+
+        assertThat(replaceOne.run(runContext).getModifiedCount(), is(1L));
+        assertThat(getMongoClient().getDatabase(database).getCollection("stock").countDocuments(new Document("sku", "s4").append("count", 0)), is(1L));
+        assertThat(getMongoClient().getDatabase(database).getCollection("stock").countDocuments(new Document("sku", "s4")), is(2L));
+    }
+
+    @Test
+    void insertMany() throws Exception {
+        RunContext runContext = runContextFactory.of(ImmutableMap.of("variable", "John Doe"));
+        String database = "ut_" + IdUtils.create().toLowerCase(Locale.ROOT);
+
+        InsertMany insert = InsertMany.builder()
+            .connection(MongoDbConnection.builder().uri(Property.ofValue(connectionUri)).build())
+            .database(Property.ofValue(database))
+            .collection(Property.ofValue("insert"))
+            .documents(List.of(
+                ImmutableMap.of("name", "{{ variable }}"),
+                ImmutableMap.of("_id", "custom", "name", "Jane Doe"),
+                "{\"name\": \"Jim Doe\"}"
+            ))
+            .maxBatchCount(Property.ofValue(2))
+            .build();
+
+        InsertMany.Output insertOutput = insert.run(runContext);
+        assertThat(insertOutput.getInsertedCount(), is(3L));
+        assertThat(insertOutput.getBatches(), is(2));
+        assertThat(insertOutput.getInsertedIds().size(), is(3));
+        assertThat(insertOutput.getInsertedIds().get(1), is("custom"));
+        assertThat(getMongoClient().getDatabase(database).getCollection("insert").countDocuments(new Document("name", "John Doe")), is(1L));
+
+        insert = InsertMany.builder()
+            .connection(MongoDbConnection.builder().uri(Property.ofValue(connectionUri)).build())
+            .database(Property.ofValue(database))
+            .collection(Property.ofValue("insert"))
+            .documents("[{\"n\": 1}, {\"n\": 2}, {\"n\": 3}, {\"n\": 4}]")
+            .ordered(Property.ofValue(false))
+            .maxReturnedIds(Property.ofValue(2))
+            .build();
+
+        insertOutput = insert.run(runContext);
+        assertThat(insertOutput.getInsertedCount(), is(4L));
+        assertThat(insertOutput.getBatches(), is(1));
+        assertThat(insertOutput.getInsertedIds() == null, is(true));
+        assertThat(getMongoClient().getDatabase(database).getCollection("insert").countDocuments(), is(7L));
+    }
 }
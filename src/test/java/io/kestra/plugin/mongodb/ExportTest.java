@@ -0,0 +1,63 @@
+package io.kestra.plugin.mongodb;
+
+import java.io.BufferedInputStream;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+
+import com.mongodb.client.MongoClient;
+
+import io.kestra.core.junit.annotations.KestraTest;
+import io.kestra.core.models.property.Property;
+import io.kestra.core.runners.RunContext;
+import io.kestra.core.serializers.FileSerde;
+import io.kestra.core.utils.IdUtils;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+
+@KestraTest
+class ExportTest extends MongoDbContainer {
+    @Test
+    void run() throws Exception {
+        RunContext runContext = runContextFactory.of();
+        String database = "ut_" + IdUtils.create().toLowerCase(Locale.ROOT);
+
+        try (MongoClient client = getMongoClient()) {
+            List<Document> documents = new ArrayList<>();
+            for (int i = 0; i < 1000; i++) {
+                documents.add(new Document("_id", new ObjectId()).append("index", i));
+            }
+            // mixed _id types must not be lost by partition bounds
+            documents.add(new Document("_id", "string-id").append("index", 1000));
+            client.getDatabase(database).getCollection("export").insertMany(documents);
+        }
+
+        Export task = Export.builder()
+            .connection(MongoDbConnection.builder().uri(Property.ofValue(connectionUri)).build())
+            .database(Property.ofValue(database))
+            .collection(Property.ofValue("export"))
+            .partitions(Property.ofValue(4))
+            .build();
+
+        Export.Output output = task.run(runContext);
+
+        assertThat(output.getSize(), is(1001L));
+        assertThat(output.getUris().size(), is(4));
+        assertThat(output.getClusterTime(), notNullValue());
+
+        long read = 0;
+        for (URI uri : output.getUris()) {
+            try (var inputStream = new BufferedInputStream(runContext.storage().getFile(uri))) {
+                read += FileSerde.readAll(inputStream).count().block();
+            }
+        }
+        assertThat(read, is(1001L));
+    }
+}
@@ -0,0 +1,24 @@
+package io.kestra.plugin.mongodb;
+
+import org.bson.BsonInt32;
+import org.bson.BsonString;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThan;
+
+class ExternalSorterTest {
+    @Test
+    void stringsInBinaryCollation() {
+        // U+FFFF sorts before U+1F600 in UTF-8 bytes, but after its UTF-16 high surrogate
+        assertThat(ExternalSorter.compare(new BsonString("\uFFFF"), new BsonString("\uD83D\uDE00")), lessThan(0));
+        assertThat(ExternalSorter.compare(new BsonString("b"), new BsonString("a")), greaterThan(0));
+        assertThat(ExternalSorter.compare(new BsonString("\u00E9"), new BsonString("z")), greaterThan(0));
+    }
+
+    @Test
+    void numbersBeforeStrings() {
+        assertThat(ExternalSorter.compare(new BsonInt32(10), new BsonString("1")), lessThan(0));
+    }
+}
@@ -1,5 +1,6 @@
 package io.kestra.plugin.mongodb;
 
+import java.time.Duration;
 import java.time.Instant;
 import java.util.*;
 
@@ -16,6 +17,8 @@ import com.mongodb.client.MongoDatabase;
 import io.kestra.core.junit.annotations.KestraTest;
 import io.kestra.core.models.property.Property;
 import io.kestra.core.runners.RunContext;
+import io.kestra.core.utils.IdUtils;
+import io.kestra.core.utils.TestsUtils;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.*;
@@ -163,4 +166,96 @@ class FindTest extends MongoDbContainer {
         System.out.println(keys);
         assertThat(keys, contains("_id", "a", "z", "m"));
     }
+
+    @Test
+    void databaseRegex() throws Exception {
+        RunContext runContext = runContextFactory.of();
+        String prefix = "ut_" + IdUtils.create().toLowerCase(Locale.ROOT);
+
+        try (MongoClient client = MongoClients.create(connectionUri)) {
+            for (int tenant = 1; tenant <= 3; tenant++) {
+                client.getDatabase(prefix + "_tenant" + tenant).getCollection("payments").insertMany(List.of(
+                    new Document("status", "failed"),
+                    new Document("status", "paid")
+                ));
+            }
+        }
+
+        Find find = Find.builder()
+            .connection(MongoDbConnection.builder().uri(Property.ofValue(connectionUri)).build())
+            .database(Property.ofValue(prefix + "_tenant\\d+"))
+            .databaseRegex(Property.ofValue(true))
+            .collection(Property.ofValue("payments"))
+            .filter(Map.of("status", "failed"))
+            .store(Property.ofValue(true))
+            .splitByNamespace(Property.ofValue(true))
+            .build();
+
+        Find.Output output = find.run(runContext);
+
+        assertThat(output.getSize(), is(3L));
+        assertThat(output.getUris().size(), is(3));
+        assertThat(output.getUris().keySet(), hasItem(prefix + "_tenant2.payments"));
+        assertThat(output.getSizes().get(prefix + "_tenant1.payments"), is(1L));
+    }
+
+    @Test
+    void cache() throws Exception {
+        String database = "ut_" + IdUtils.create().toLowerCase(Locale.ROOT);
+
+        try (MongoClient client = MongoClients.create(connectionUri)) {
+            client.getDatabase(database).getCollection("config").insertMany(List.of(
+                new Document("key", "a"),
+                new Document("key", "b")
+            ));
+        }
+
+        Find find = Find.builder()
+            .id("cache_" + IdUtils.create())
+            .type(Find.class.getName())
+            .connection(MongoDbConnection.builder().uri(Property.ofValue(connectionUri)).build())
+            .database(Property.ofValue(database))
+            .collection(Property.ofValue("config"))
+            .cacheTtl(Property.ofValue(Duration.ofMinutes(5)))
+            .build();
+        RunContext runContext = TestsUtils.mockRunContext(runContextFactory, find, Map.of());
+
+        Find.Output output = find.run(runContext);
+        assertThat(output.getCached(), is(false));
+        assertThat(output.getSize(), is(2L));
+
+        try (MongoClient client = MongoClients.create(connectionUri)) {
+            client.getDatabase(database).getCollection("config").insertOne(new Document("key", "c"));
+        }
+
+        output = find.run(runContext);
+        assertThat(output.getCached(), is(true));
+        assertThat(output.getSize(), is(2L));
+
+        Find invalidated = Find.builder()
+            .id(find.getId())
+            .type(Find.class.getName())
+            .connection(MongoDbConnection.builder().uri(Property.ofValue(connectionUri)).build())
+            .database(Property.ofValue(database))
+            .collection(Property.ofValue("config"))
+            .filter(Map.of("key", Map.of("$in", List.of("a", "b", "c", "d"))))
+            .cacheTtl(Property.ofValue(Duration.ofMinutes(5)))
+            .cacheInvalidateOnChange(Property.ofValue(true))
+            .build();
+
+        output = invalidated.run(runContext);
+        assertThat(output.getCached(), is(false));
+        assertThat(output.getSize(), is(3L));
+
+        output = invalidated.run(runContext);
+        assertThat(output.getCached(), is(true));
+
+        try (MongoClient client = MongoClients.create(connectionUri)) {
+            client.getDatabase(database).getCollection("config").insertOne(new Document("key", "d"));
+        }
+
+        output = invalidated.run(runContext);
+        assertThat(output.getCached(), is(false));
+        assertThat(output.getSize(), is(4L));
+    }
 }
@@ -0,0 +1,158 @@
+package io.kestra.plugin.mongodb;
+
+import java.io.BufferedInputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+
+import com.mongodb.client.MongoDatabase;
+
+import io.kestra.core.junit.annotations.KestraTest;
+import io.kestra.core.models.property.Property;
+import io.kestra.core.runners.RunContext;
+import io.kestra.core.serializers.FileSerde;
+import io.kestra.core.utils.IdUtils;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@KestraTest
+class JoinTest extends MongoDbContainer {
+
+    @Test
+    void inMemory() throws Exception {
+        RunContext runContext = runContextFactory.of();
+        String database = this.database();
+
+        Join.Output output = this.join(database, Join.JoinType.INNER, 256L * 1024 * 1024).run(runContext);
+
+        assertThat(output.getSpilled(), is(false));
+        this.assertRows(runContext, output, 40L);
+    }
+
+    @Test
+    void spilled() throws Exception {
+        RunContext runContext = runContextFactory.of();
+        String database = this.database();
+
+        Join.Output output = this.join(database, Join.JoinType.INNER, 500L).run(runContext);
+
+        assertThat(output.getSpilled(), is(true));
+        this.assertRows(runContext, output, 40L);
+    }
+
+    @Test
+    void left() throws Exception {
+        RunContext runContext = runContextFactory.of();
+        String database = this.database();
+
+        Join.Output output = this.join(database, Join.JoinType.LEFT, 500L).run(runContext);
+
+        assertThat(output.getSpilled(), is(true));
+        this.assertRows(runContext, output, 50L);
+    }
+
+    @Test
+    void repartitioned() throws Exception {
+        RunContext runContext = runContextFactory.of();
+        String database = this.database();
+
+        // a partition holds at most two customers
+        Join.Output output = this.join(database, Join.JoinType.LEFT, 250L).run(runContext);
+
+        assertThat(output.getSpilled(), is(true));
+        this.assertRows(runContext, output, 50L);
+    }
+
+    @Test
+    void skewedPartition() throws Exception {
+        RunContext runContext = runContextFactory.of();
+        String database = this.database();
+
+        getMongoClient().getDatabase(database).getCollection("accounts").insertMany(
+            IntStream.range(0, 10).mapToObj(i -> new Document("_id", i).append("customerId", 1L)).toList()
+        );
+
+        Join join = Join.builder()
+            .connection(MongoDbConnection.builder().uri(Property.ofValue(connectionUri)).build())
+            .database(Property.ofValue(database))
+            .collection(Property.ofValue("orders"))
+            .probeKey(Property.ofValue("customerId"))
+            .buildCollection(Property.ofValue("accounts"))
+            .buildKey(Property.ofValue("customerId"))
+            .as(Property.ofValue("account"))
+            .maxMemoryBytes(Property.ofValue(250L))
+            .partitions(Property.ofValue(4))
+            .build();
+
+        IllegalStateException exception = assertThrows(IllegalStateException.class, () -> join.run(runContext));
+        assertThat(exception.getMessage(), containsString("maxMemoryBytes"));
+
+        try (Stream<Path> files = Files.list(runContext.workingDir().path())) {
+            assertThat(files.filter(path -> path.toString().endsWith(".bson")).toList(), empty());
+        }
+    }
+
+    private String database() {
+        String database = "ut_" + IdUtils.create().toLowerCase(Locale.ROOT);
+        MongoDatabase mongoDatabase = getMongoClient().getDatabase(database);
+
+        // customers 0 to 7 exist, orders reference customers 0 to 9
+        mongoDatabase.getCollection("customers").insertMany(
+            IntStream.range(0, 8).mapToObj(i -> new Document("_id", i).append("name", "customer " + i)).toList()
+        );
+        mongoDatabase.getCollection("orders").insertMany(
+            IntStream.range(0, 50).mapToObj(i -> new Document("_id", i).append("customerId", (long) (i % 10))).toList()
+        );
+
+        return database;
+    }
+
+    private Join join(String database, Join.JoinType joinType, long maxMemoryBytes) {
+        return Join.builder()
+            .connection(MongoDbConnection.builder().uri(Property.ofValue(connectionUri)).build())
+            .database(Property.ofValue(database))
+            .collection(Property.ofValue("orders"))
+            .probeKey(Property.ofValue("customerId"))
+            .buildCollection(Property.ofValue("customers"))
+            .as(Property.ofValue("customer"))
+            .joinType(Property.ofValue(joinType))
+            .maxMemoryBytes(Property.ofValue(maxMemoryBytes))
+            .partitions(Property.ofValue(4))
+            .build();
+    }
+
+    @SuppressWarnings("unchecked")
+    private void assertRows(RunContext runContext, Join.Output output, long size) throws Exception {
+        assertThat(output.getSize(), is(size));
+
+        List<Object> rows;
+        try (var inputStream = new BufferedInputStream(runContext.storage().getFile(output.getUri()))) {
+            rows = FileSerde.readAll(inputStream).collectList().block();
+        }
+
+        assertThat((long) rows.size(), is(size));
+        for (Object object : rows) {
+            Map<String, Object> row = (Map<String, Object>) object;
+            long customerId = ((Number) row.get("customerId")).longValue();
+            Map<String, Object> customer = (Map<String, Object>) row.get("customer");
+
+            if (customerId < 8) {
+                assertThat(customer.get("name"), is("customer " + customerId));
+            } else {
+                assertThat(customer, nullValue());
+            }
+        }
+    }
+}
@@ -5,14 +5,21 @@ import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.OutputStream;
 import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.stream.IntStream;
 
 import org.bson.Document;
 import org.bson.types.ObjectId;
 import org.junit.jupiter.api.Test;
 
+import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableMap;
 import com.mongodb.client.MongoClient;
+import com.mongodb.client.model.IndexOptions;
 
 import io.kestra.core.junit.annotations.KestraTest;
 import io.kestra.core.models.property.Property;
@@ -25,7 +32,10 @@ import io.kestra.core.utils.IdUtils;
 import jakarta.inject.Inject;
 
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 @KestraTest
 class LoadTest extends MongoDbContainer {
@@ -116,4 +126,364 @@ class LoadTest extends MongoDbContainer {
             assertThat(stored.getString("name"), is("john"));
         }
     }
-}
+
+    @Test
+    void transformations() throws Exception {
+        RunContext runContext = runContextFactory.of();
+        String database = "ut_" + IdUtils.create().toLowerCase(Locale.ROOT);
+
+        File tempFile = File.createTempFile(this.getClass().getSimpleName().toLowerCase() + "_transform_", ".trs");
+        ObjectId expectedId = new ObjectId();
+        try (OutputStream output = new FileOutputStream(tempFile)) {
+            FileSerde.write(output, ImmutableMap.of("id", expectedId.toString(), "name", "john", "amount", "42.5", "legacy", "drop me"));
+        }
+        URI uri = storageInterface.put(TenantService.MAIN_TENANT, null, URI.create("/" + IdUtils.create() + ".ion"), new FileInputStream(tempFile));
+
+        Load put = Load.builder()
+            .connection(MongoDbConnection.builder().uri(Property.ofValue(connectionUri)).build())
+            .database(Property.ofValue(database))
+            .collection(Property.ofValue("load_transform"))
+            .from(Property.ofValue(uri.toString()))
+            .idKey(Property.ofValue("id"))
+            .renameFields(Property.ofValue(Map.of("name", "firstName")))
+            .removeFields(Property.ofValue(List.of("legacy")))
+            .coerceTypes(Property.ofValue(Map.of("amount", Load.FieldType.DOUBLE)))
+            .constantFields(Property.ofValue(Map.of("source", "crm")))
+            .build();
+
+        put.run(runContext);
+
+        try (MongoClient client = getMongoClient()) {
+            Document stored = client.getDatabase(database).getCollection("load_transform").find().first();
+
+            assertThat(stored.get("_id"), is(expectedId));
+            assertThat(stored.getString("firstName"), is("john"));
+            assertThat(stored.getDouble("amount"), is(42.5));
+            assertThat(stored.getString("source"), is("crm"));
+            assertThat(stored.containsKey("legacy"), is(false));
+            assertThat(stored.containsKey("name"), is(false));
+        }
+    }
+
+    @Test
+    void swap() throws Exception {
+        RunContext runContext = runContextFactory.of();
+        String database = "ut_" + IdUtils.create().toLowerCase(Locale.ROOT);
+
+        try (MongoClient client = getMongoClient()) {
+            var existing = client.getDatabase(database).getCollection("load_swap");
+            existing.insertMany(IntStream.range(0, 5).mapToObj(i -> new Document("name", "old")).toList());
+            existing.createIndex(new Document("name", 1));
+        }
+
+        File tempFile = File.createTempFile(this.getClass().getSimpleName().toLowerCase() + "_swap_", ".trs");
+        try (OutputStream output = new FileOutputStream(tempFile)) {
+            for (int i = 0; i < 20; i++) {
+                FileSerde.write(output, ImmutableMap.of("name", "new"));
+            }
+        }
+        URI uri = storageInterface.put(TenantService.MAIN_TENANT, null, URI.create("/" + IdUtils.create() + ".ion"), new FileInputStream(tempFile));
+
+        Load put = Load.builder()
+            .connection(MongoDbConnection.builder().uri(Property.ofValue(connectionUri)).build())
+            .database(Property.ofValue(database))
+            .collection(Property.ofValue("load_swap"))
+            .from(Property.ofValue(uri.toString()))
+            .reloadStrategy(Property.ofValue(Load.ReloadStrategy.SWAP))
+            .build();
+
+        Load.Output runOutput = put.run(runContext);
+
+        assertThat(runOutput.getInsertedCount(), is(20));
+
+        try (MongoClient client = getMongoClient()) {
+            var collection = client.getDatabase(database).getCollection("load_swap");
+
+            assertThat(collection.countDocuments(), is(20L));
+            assertThat(collection.countDocuments(new Document("name", "old")), is(0L));
+            assertThat(collection.listIndexes().into(new ArrayList<>()).size(), is(2));
+            assertThat(client.getDatabase(database).listCollectionNames().into(new ArrayList<>()), is(List.of("load_swap")));
+        }
+    }
+
+    @Test
+    void deferIndexes() throws Exception {
+        RunContext runContext = runContextFactory.of();
+        String database = "ut_" + IdUtils.create().toLowerCase(Locale.ROOT);
+        this.createIndexes(database, "load_defer");
+
+        Load put = this.deferIndexes(database, ImmutableMap.of("name", "john", "city", "Paris"), Load.WriteMode.INSERT);
+        put.run(runContext);
+
+        try (MongoClient client = getMongoClient()) {
+            var collection = client.getDatabase(database).getCollection("load_defer");
+            assertThat(collection.countDocuments(), is(50L));
+            assertThat(collection.listIndexes().into(new ArrayList<>()).size(), is(3));
+        }
+        assertThat(runContext.metrics().stream().anyMatch(e -> e.getName().equals("index.build.duration")), is(true));
+    }
+
+    @Test
+    void deferIndexesRestoredOnFailure() throws Exception {
+        String database = "ut_" + IdUtils.create().toLowerCase(Locale.ROOT);
+        this.createIndexes(database, "load_defer");
+
+        // upserts without _id make the load fail after the indexes were dropped
+        Load put = this.deferIndexes(database, ImmutableMap.of("name", "john"), Load.WriteMode.UPSERT);
+        assertThrows(IllegalArgumentException.class, () -> put.run(runContextFactory.of()));
+
+        try (MongoClient client = getMongoClient()) {
+            assertThat(client.getDatabase(database).getCollection("load_defer").listIndexes().into(new ArrayList<>()).size(), is(3));
+        }
+    }
+
+    @Test
+    void deferIndexesRebuildFailure() throws Exception {
+        String database = "ut_" + IdUtils.create().toLowerCase(Locale.ROOT);
+        this.createIndexes(database, "load_defer");
+        try (MongoClient client = getMongoClient()) {
+            var collection = client.getDatabase(database).getCollection("load_defer");
+            collection.createIndex(new Document("location", "2dsphere"));
+            collection.createIndex(new Document("code", 1), new IndexOptions().unique(true).partialFilterExpression(new Document("code", new Document("$exists", true))));
+        }
+
+        // out of bounds coordinates are accepted without the geo index but make its rebuild fail
+        Load put = this.deferIndexes(
+            database,
+            ImmutableMap.of("name", "john", "location", ImmutableMap.of("type", "Point", "coordinates", List.of(500, 500))),
+            Load.WriteMode.INSERT
+        );
+
+        IllegalStateException e = assertThrows(IllegalStateException.class, () -> put.run(runContextFactory.of()));
+        assertThat(e.getMessage(), containsString("location_2dsphere"));
+
+        try (MongoClient client = getMongoClient()) {
+            List<String> names = client.getDatabase(database).getCollection("load_defer").listIndexes()
+                .map(index -> index.getString("name"))
+                .into(new ArrayList<>());
+
+            assertThat(names, containsInAnyOrder("_id_", "name_1", "city_1_name_-1", "code_1"));
+        }
+    }
+
+    private void createIndexes(String database, String collection) {
+        try (MongoClient client = getMongoClient()) {
+            client.getDatabase(database).getCollection(collection).createIndex(new Document("name", 1));
+            client.getDatabase(database).getCollection(collection).createIndex(new Document("city", 1).append("name", -1));
+        }
+    }
+
+    private Load deferIndexes(String database, Map<String, Object> record, Load.WriteMode writeMode) throws Exception {
+        File tempFile = File.createTempFile(this.getClass().getSimpleName().toLowerCase() + "_defer_", ".trs");
+        try (OutputStream output = new FileOutputStream(tempFile)) {
+            for (int i = 0; i < 50; i++) {
+                FileSerde.write(output, record);
+            }
+        }
+        URI uri = storageInterface.put(TenantService.MAIN_TENANT, null, URI.create("/" + IdUtils.create() + ".ion"), new FileInputStream(tempFile));
+
+        return Load.builder()
+            .connection(MongoDbConnection.builder().uri(Property.ofValue(connectionUri)).build())
+            .database(Property.ofValue(database))
+            .collection(Property.ofValue("load_defer"))
+            .from(Property.ofValue(uri.toString()))
+            .writeMode(Property.ofValue(writeMode))
+            .indexStrategy(Property.ofValue(AbstractLoad.IndexStrategy.DEFER))
+            .build();
+    }
+
+    @Test
+    void sortKey() throws Exception {
+        RunContext runContext = runContextFactory.of();
+        String database = "ut_" + IdUtils.create().toLowerCase(Locale.ROOT);
+
+        List<Integer> keys = new ArrayList<>(IntStream.range(0, 100).boxed().toList());
+        Collections.shuffle(keys);
+
+        File tempFile = File.createTempFile(this.getClass().getSimpleName().toLowerCase() + "_sort_", ".trs");
+        try (OutputStream output = new FileOutputStream(tempFile)) {
+            for (Integer key : keys) {
+                FileSerde.write(output, ImmutableMap.of("_id", key, "name", "john"));
+            }
+        }
+        URI uri = storageInterface.put(TenantService.MAIN_TENANT, null, URI.create("/" + IdUtils.create() + ".ion"), new FileInputStream(tempFile));
+
+        Load put = Load.builder()
+            .connection(MongoDbConnection.builder().uri(Property.ofValue(connectionUri)).build())
+            .database(Property.ofValue(database))
+            .collection(Property.ofValue("load_sort"))
+            .from(Property.ofValue(uri.toString()))
+            .sortKey(Property.ofValue("_id"))
+            .sortBufferSize(Property.ofValue(7))
+            .chunk(Property.ofValue(10))
+            .build();
+
+        Load.Output runOutput = put.run(runContext);
+        assertThat(runOutput.getInsertedCount(), is(100));
+
+        try (MongoClient client = getMongoClient()) {
+            // natural order follows insertion order, which must be the key order
+            List<Object> stored = client.getDatabase(database).getCollection("load_sort").find().map(document -> document.get("_id")).into(new ArrayList<>());
+            assertThat(stored, is(IntStream.range(0, 100).boxed().toList()));
+        }
+    }
+
+    @Test
+    void preSplitSkippedOnUnshardedCollection() throws Exception {
+        RunContext runContext = runContextFactory.of();
+        String database = "ut_" + IdUtils.create().toLowerCase(Locale.ROOT);
+
+        File tempFile = File.createTempFile(this.getClass().getSimpleName().toLowerCase() + "_split_", ".trs");
+        try (OutputStream output = new FileOutputStream(tempFile)) {
+            for (int i = 0; i < 30; i++) {
+                FileSerde.write(output, ImmutableMap.of("_id", i));
+            }
+        }
+        URI uri = storageInterface.put(TenantService.MAIN_TENANT, null, URI.create("/" + IdUtils.create() + ".ion"), new FileInputStream(tempFile));
+
+        Load put = Load.builder()
+            .connection(MongoDbConnection.builder().uri(Property.ofValue(connectionUri)).build())
+            .database(Property.ofValue(database))
+            .collection(Property.ofValue("load_split"))
+            .from(Property.ofValue(uri.toString()))
+            .preSplitChunks(Property.ofValue(4))
+            .build();
+
+        Load.Output runOutput = put.run(runContext);
+
+        assertThat(runOutput.getInsertedCount(), is(30));
+    }
+
+    @Test
+    void hashUpsert() throws Exception {
+        String database = "ut_" + IdUtils.create().toLowerCase(Locale.ROOT);
+        List<String> ids = IntStream.range(0, 10).mapToObj(i -> new ObjectId().toString()).toList();
+
+        Load.Output first = this.hashUpsert(database, ids, 0).run(runContextFactory.of());
+        assertThat(first.getSkippedCount(), is(0));
+        assertThat(first.getMatchedCount(), is(0));
+
+        Load.Output second = this.hashUpsert(database, ids, 3).run(runContextFactory.of());
+        assertThat(second.getSize(), is(10L));
+        assertThat(second.getSkippedCount(), is(7));
+        assertThat(second.getModifiedCount(), is(3));
+
+        try (MongoClient client = getMongoClient()) {
+            assertThat(client.getDatabase(database).getCollection("load_hash").countDocuments(), is(10L));
+        }
+    }
+
+    @Test
+    void hashUpsertRepeatedKey() throws Exception {
+        String database = "ut_" + IdUtils.create().toLowerCase(Locale.ROOT);
+        List<String> ids = IntStream.range(0, 4).mapToObj(i -> new ObjectId().toString()).toList();
+
+        this.hashUpsert(database, ids, 0).run(runContextFactory.of());
+
+        // the same key twice in one chunk: unchanged first, changed last
+        File tempFile = File.createTempFile(this.getClass().getSimpleName().toLowerCase() + "_hash_", ".trs");
+        try (OutputStream output = new FileOutputStream(tempFile)) {
+            FileSerde.write(output, ImmutableMap.of("id", ids.getFirst(), "name", "john"));
+            FileSerde.write(output, ImmutableMap.of("id", ids.getFirst(), "name", "jane"));
+            FileSerde.write(output, ImmutableMap.of("id", ids.get(1), "name", "john"));
+        }
+        URI uri = storageInterface.put(TenantService.MAIN_TENANT, null, URI.create("/" + IdUtils.create() + ".ion"), new FileInputStream(tempFile));
+
+        Load.Output output = Load.builder()
+            .connection(MongoDbConnection.builder().uri(Property.ofValue(connectionUri)).build())
+            .database(Property.ofValue(database))
+            .collection(Property.ofValue("load_hash"))
+            .from(Property.ofValue(uri.toString()))
+            .idKey(Property.ofValue("id"))
+            .writeMode(Property.ofValue(Load.WriteMode.HASH_UPSERT))
+            .chunk(Property.ofValue(4))
+            .build()
+            .run(runContextFactory.of());
+
+        assertThat(output.getSkippedCount(), is(2));
+        assertThat(output.getMatchedCount(), is(1));
+        assertThat(output.getModifiedCount(), is(1));
+
+        try (MongoClient client = getMongoClient()) {
+            Document stored = client.getDatabase(database).getCollection("load_hash").find(new Document("_id", ids.getFirst())).first();
+            assertThat(stored.getString("name"), is("jane"));
+        }
+    }
+
+    @Test
+    void collectionTemplate() throws Exception {
+        RunContext runContext = runContextFactory.of();
+        String database = "ut_" + IdUtils.create().toLowerCase(Locale.ROOT);
+
+        File tempFile = File.createTempFile(this.getClass().getSimpleName().toLowerCase() + "_template_", ".trs");
+        try (OutputStream output = new FileOutputStream(tempFile)) {
+            for (int i = 0; i < 100; i++) {
+                FileSerde.write(output, i % 10 == 0 ? ImmutableMap.of("name", "john") : ImmutableMap.of("name", "john", "month", "2026_0" + (i % 3 + 1)));
+            }
+        }
+        URI uri = storageInterface.put(TenantService.MAIN_TENANT, null, URI.create("/" + IdUtils.create() + ".ion"), new FileInputStream(tempFile));
+
+        Load put = Load.builder()
+            .connection(MongoDbConnection.builder().uri(Property.ofValue(connectionUri)).build())
+            .database(Property.ofValue(database))
+            .collection(Property.ofValue("events_unknown"))
+            .collectionTemplate(Property.ofValue("events_{record.month}"))
+            .from(Property.ofValue(uri.toString()))
+            .chunk(Property.ofValue(10))
+            .maxBufferedRecords(Property.ofValue(15))
+            .build();
+
+        Load.Output runOutput = put.run(runContext);
+
+        assertThat(runOutput.getSize(), is(100L));
+        assertThat(runOutput.getInsertedCount(), is(100));
+
+        try (MongoClient client = getMongoClient()) {
+            assertThat(client.getDatabase(database).getCollection("events_unknown").countDocuments(), is(10L));
+            assertThat(client.getDatabase(database).getCollection("events_2026_01").countDocuments(), is(30L));
+            assertThat(client.getDatabase(database).getCollection("events_2026_02").countDocuments(), is(30L));
+            assertThat(client.getDatabase(database).getCollection("events_2026_03").countDocuments(), is(30L));
+        }
+    }
+
+    @Test
+    void collectionTemplateInvalidName() throws Exception {
+        File tempFile = File.createTempFile(this.getClass().getSimpleName().toLowerCase() + "_template_", ".trs");
+        try (OutputStream output = new FileOutputStream(tempFile)) {
+            FileSerde.write(output, ImmutableMap.of("name", "john", "month", "2026_01"));
+            FileSerde.write(output, ImmutableMap.of("name", "john", "month", "$bad"));
+        }
+        URI uri = storageInterface.put(TenantService.MAIN_TENANT, null, URI.create("/" + IdUtils.create() + ".ion"), new FileInputStream(tempFile));
+
+        Load put = Load.builder()
+            .connection(MongoDbConnection.builder().uri(Property.ofValue(connectionUri)).build())
+            .database(Property.ofValue("ut_" + IdUtils.create().toLowerCase(Locale.ROOT)))
+            .collection(Property.ofValue("events_unknown"))
+            .collectionTemplate(Property.ofValue("events_{record.month}"))
+            .from(Property.ofValue(uri.toString()))
+            .build();
+
+        Exception e = assertThrows(Exception.class, () -> put.run(runContextFactory.of()));
+        assertThat(Throwables.getRootCause(e).getMessage(), containsString("Invalid collection name 'events_$bad'"));
+    }
+
+    private Load hashUpsert(String database, List<String> ids, int changed) throws Exception {
+        File tempFile = File.createTempFile(this.getClass().getSimpleName().toLowerCase() + "_hash_", ".trs");
+        try (OutputStream output = new FileOutputStream(tempFile)) {
+            for (int i = 0; i < ids.size(); i++) {
+                FileSerde.write(output, ImmutableMap.of("id", ids.get(i), "name", i < changed ? "jane" : "john"));
+            }
+        }
+        URI uri = storageInterface.put(TenantService.MAIN_TENANT, null, URI.create("/" + IdUtils.create() + ".ion"), new FileInputStream(tempFile));
+
+        return Load.builder()
+            .connection(MongoDbConnection.builder().uri(Property.ofValue(connectionUri)).build())
+            .database(Property.ofValue(database))
+            .collection(Property.ofValue("load_hash"))
+            .from(Property.ofValue(uri.toString()))
+            .idKey(Property.ofValue("id"))
+            .writeMode(Property.ofValue(Load.WriteMode.HASH_UPSERT))
+            .chunk(Property.ofValue(4))
+            .build();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,92 @@
+package io.kestra.plugin.mongodb;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+
+import com.google.common.collect.ImmutableMap;
+
+import io.kestra.core.junit.annotations.KestraTest;
+import io.kestra.core.models.property.Property;
+import io.kestra.core.runners.RunContext;
+import io.kestra.core.serializers.FileSerde;
+import io.kestra.core.storages.StorageInterface;
+import io.kestra.core.tenant.TenantService;
+import io.kestra.core.utils.IdUtils;
+
+import jakarta.inject.Inject;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+@KestraTest
+class LookupTest extends MongoDbContainer {
+
+    @Inject
+    private StorageInterface storageInterface;
+
+    @SuppressWarnings("unchecked")
+    @Test
+    void run() throws Exception {
+        RunContext runContext = runContextFactory.of();
+        String database = "ut_" + IdUtils.create().toLowerCase(Locale.ROOT);
+
+        getMongoClient().getDatabase(database).getCollection("customers").insertMany(
+            IntStream.range(0, 5).mapToObj(i -> new Document("_id", i).append("name", "customer " + i).append("secret", "s" + i)).toList()
+        );
+
+        File tempFile = File.createTempFile(this.getClass().getSimpleName().toLowerCase() + "_", ".trs");
+        try (OutputStream output = new FileOutputStream(tempFile)) {
+            for (int i = 0; i < 20; i++) {
+                FileSerde.write(output, ImmutableMap.of("order", i, "customerId", i % 7));
+            }
+        }
+        URI uri = storageInterface.put(TenantService.MAIN_TENANT, null, URI.create("/" + IdUtils.create() + ".ion"), new FileInputStream(tempFile));
+
+        Lookup lookup = Lookup.builder()
+            .connection(MongoDbConnection.builder().uri(Property.ofValue(connectionUri)).build())
+            .database(Property.ofValue(database))
+            .collection(Property.ofValue("customers"))
+            .from(Property.ofValue(uri.toString()))
+            .key(Property.ofValue("customerId"))
+            .as(Property.ofValue("customer"))
+            .projection(ImmutableMap.of("name", 1))
+            .batchSize(Property.ofValue(3))
+            .concurrency(Property.ofValue(2))
+            .build();
+
+        Lookup.Output output = lookup.run(runContext);
+        assertThat(output.getSize(), is(20L));
+        assertThat(output.getMatched(), is(15L));
+
+        List<Object> rows;
+        try (var inputStream = new BufferedInputStream(runContext.storage().getFile(output.getUri()))) {
+            rows = FileSerde.readAll(inputStream).collectList().block();
+        }
+
+        assertThat(rows.size(), is(20));
+        for (int i = 0; i < 20; i++) {
+            Map<String, Object> row = (Map<String, Object>) rows.get(i);
+            assertThat(((Number) row.get("order")).intValue(), is(i));
+
+            if (i % 7 < 5) {
+                Map<String, Object> customer = (Map<String, Object>) row.get("customer");
+                assertThat(customer.get("name"), is("customer " + i % 7));
+                assertThat(customer.containsKey("secret"), is(false));
+            } else {
+                assertThat(row.get("customer"), nullValue());
+            }
+        }
+    }
+}
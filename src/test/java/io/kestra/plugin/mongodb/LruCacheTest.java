@@ -0,0 +1,53 @@
+package io.kestra.plugin.mongodb;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+class LruCacheTest {
+    @Test
+    void evictsLeastRecentlyUsedByWeight() {
+        LruCache<String, List<Integer>> cache = new LruCache<>(10, List::size);
+
+        cache.put("a", List.of(1, 2, 3, 4));
+        cache.put("b", List.of(1, 2, 3));
+        cache.put("c", List.of(1, 2));
+        assertThat(cache.get("a").size(), is(4));
+
+        // "a" was read last, so "b" then "c" make room for the 5 new elements
+        cache.put("d", List.of(1, 2, 3, 4, 5));
+        assertThat(cache.get("b"), is(nullValue()));
+        assertThat(cache.get("c"), is(nullValue()));
+        assertThat(cache.get("a").size(), is(4));
+        assertThat(cache.get("d").size(), is(5));
+    }
+
+    @Test
+    void replacedEntryReleasesItsWeight() {
+        LruCache<String, List<Integer>> cache = new LruCache<>(10, List::size);
+
+        cache.put("a", List.of(1, 2, 3, 4, 5, 6, 7, 8));
+        cache.put("a", List.of(1));
+        cache.put("b", List.of(1, 2, 3, 4, 5, 6, 7, 8, 9));
+
+        assertThat(cache.get("a").size(), is(1));
+        assertThat(cache.get("b").size(), is(9));
+    }
+
+    @Test
+    void tooHeavyEntryIsNotCached() {
+        LruCache<String, List<Integer>> cache = new LruCache<>(3, List::size);
+
+        cache.put("a", List.of(1));
+        cache.put("a", List.of(1, 2, 3, 4));
+        cache.put("b", List.of(1, 2, 3));
+
+        // the previous value of "a" was dropped, and its weight with it
+        assertThat(cache.get("a"), is(nullValue()));
+        assertThat(cache.get("b").size(), is(3));
+    }
+}
@@ -0,0 +1,204 @@
+package io.kestra.plugin.mongodb;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.mongodb.client.MongoClient;
+
+import io.kestra.core.junit.annotations.KestraTest;
+import io.kestra.core.models.property.Property;
+import io.kestra.core.runners.RunContext;
+import io.kestra.core.utils.IdUtils;
+import io.kestra.core.utils.TestsUtils;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+@KestraTest
+class MaterializeViewTest extends MongoDbContainer {
+    private String database;
+
+    @BeforeEach
+    void setUp() {
+        database = "ut_" + IdUtils.create().toLowerCase(Locale.ROOT);
+
+        try (MongoClient client = getMongoClient()) {
+            client.getDatabase(database).getCollection("orders").insertMany(
+                IntStream.range(0, 10).mapToObj(i -> new Document("_id", i).append("product", i % 2 == 0 ? "a" : "b").append("amount", 10)).toList()
+            );
+        }
+    }
+
+    @Test
+    void incremental() throws Exception {
+        MaterializeView task = this.rollup("_id");
+
+        RunContext runContext = TestsUtils.mockRunContext(runContextFactory, task, Map.of());
+
+        MaterializeView.Output output = task.run(runContext);
+        assertThat(output.getUpToDate(), is(false));
+        assertThat(output.getPreviousWatermark(), is(nullValue()));
+        assertThat(output.getWatermark(), is(9));
+        assertThat(revenue("a"), is(50));
+
+        output = task.run(runContext);
+        assertThat(output.getUpToDate(), is(true));
+        assertThat(revenue("a"), is(50));
+
+        try (MongoClient client = getMongoClient()) {
+            client.getDatabase(database).getCollection("orders").insertMany(List.of(
+                new Document("_id", 10).append("product", "a").append("amount", 5),
+                new Document("_id", 11).append("product", "c").append("amount", 7)
+            ));
+        }
+
+        output = task.run(runContext);
+        assertThat(output.getUpToDate(), is(false));
+        assertThat(output.getPreviousWatermark(), is(9));
+        assertThat(output.getWatermark(), is(11));
+        assertThat(revenue("a"), is(55));
+        assertThat(revenue("b"), is(50));
+        assertThat(revenue("c"), is(7));
+    }
+
+    @Test
+    void watermarkTies() throws Exception {
+        MaterializeView task = this.rollup("day");
+        RunContext runContext = TestsUtils.mockRunContext(runContextFactory, task, Map.of());
+
+        try (MongoClient client = getMongoClient()) {
+            client.getDatabase(database).getCollection("orders").updateMany(new Document(), new Document("$set", new Document("day", 1)));
+        }
+
+        MaterializeView.Output output = task.run(runContext);
+        assertThat(output.getWatermark(), is(1));
+        assertThat(revenue("a"), is(50));
+
+        // written after the run with the same watermark value
+        try (MongoClient client = getMongoClient()) {
+            client.getDatabase(database).getCollection("orders").insertMany(List.of(
+                new Document("_id", 10).append("product", "a").append("amount", 5).append("day", 1),
+                new Document("_id", 11).append("product", "a").append("amount", 5).append("day", 2)
+            ));
+        }
+
+        output = task.run(runContext);
+        assertThat(output.getUpToDate(), is(false));
+        assertThat(output.getWatermark(), is(2));
+        assertThat(revenue("a"), is(60));
+    }
+
+    @Test
+    void nestedWatermark() throws Exception {
+        MaterializeView task = this.rollup("meta.day");
+        RunContext runContext = TestsUtils.mockRunContext(runContextFactory, task, Map.of());
+
+        try (MongoClient client = getMongoClient()) {
+            client.getDatabase(database).getCollection("orders").updateMany(new Document(), new Document("$set", new Document("meta", new Document("day", 1))));
+        }
+
+        MaterializeView.Output output = task.run(runContext);
+        assertThat(output.getUpToDate(), is(false));
+        assertThat(output.getWatermark(), is(1));
+        assertThat(revenue("a"), is(50));
+
+        output = task.run(runContext);
+        assertThat(output.getUpToDate(), is(true));
+
+        try (MongoClient client = getMongoClient()) {
+            client.getDatabase(database).getCollection("orders").insertMany(List.of(
+                new Document("_id", 10).append("product", "a").append("amount", 5).append("meta", new Document("day", 1)),
+                new Document("_id", 11).append("product", "a").append("amount", 5).append("meta", new Document("day", 2))
+            ));
+        }
+
+        output = task.run(runContext);
+        assertThat(output.getUpToDate(), is(false));
+        assertThat(output.getPreviousWatermark(), is(1));
+        assertThat(output.getWatermark(), is(2));
+        assertThat(revenue("a"), is(60));
+    }
+
+    @Test
+    void full() throws Exception {
+        MaterializeView task = this.rollup("_id");
+        RunContext runContext = TestsUtils.mockRunContext(runContextFactory, task, Map.of());
+
+        task.run(runContext);
+        assertThat(revenue("a"), is(50));
+
+        MaterializeView full = MaterializeView.builder()
+            .id(task.getId())
+            .type(MaterializeView.class.getName())
+            .connection(task.getConnection())
+            .database(task.getDatabase())
+            .collection(task.getCollection())
+            .watermarkField(task.getWatermarkField())
+            .pipeline(task.getPipeline())
+            .targetCollection(task.getTargetCollection())
+            .whenMatchedPipeline(task.getWhenMatchedPipeline())
+            .full(Property.ofValue(true))
+            .build();
+
+        MaterializeView.Output output = full.run(runContext);
+        assertThat(output.getPreviousWatermark(), is(nullValue()));
+        assertThat(revenue("a"), is(50));
+        assertThat(revenue("b"), is(50));
+    }
+
+    @Test
+    void replace() throws Exception {
+        MaterializeView task = MaterializeView.builder()
+            .id("view_" + IdUtils.create())
+            .type(MaterializeView.class.getName())
+            .connection(MongoDbConnection.builder().uri(Property.ofValue(connectionUri)).build())
+            .database(Property.ofValue(database))
+            .collection(Property.ofValue("orders"))
+            .filter(Map.of("product", "a"))
+            .watermarkField(Property.ofValue("_id"))
+            .targetDatabase(Property.ofValue(database + "_view"))
+            .targetCollection(Property.ofValue("orders_a"))
+            .whenMatched(Property.ofValue(MaterializeView.WhenMatched.REPLACE))
+            .build();
+
+        task.run(TestsUtils.mockRunContext(runContextFactory, task, Map.of()));
+
+        try (MongoClient client = getMongoClient()) {
+            assertThat(client.getDatabase(database + "_view").getCollection("orders_a").countDocuments(), is(5L));
+        }
+    }
+
+    private MaterializeView rollup(String watermarkField) {
+        return MaterializeView.builder()
+            .id("rollup_" + IdUtils.create())
+            .type(MaterializeView.class.getName())
+            .connection(MongoDbConnection.builder().uri(Property.ofValue(connectionUri)).build())
+            .database(Property.ofValue(database))
+            .collection(Property.ofValue("orders"))
+            .watermarkField(Property.ofValue(watermarkField))
+            .pipeline(Property.ofValue(List.of(
+                Map.of("$group", Map.of("_id", "$product", "revenue", Map.of("$sum", "$amount"), "orders", Map.of("$sum", 1)))
+            )))
+            .targetCollection(Property.ofValue("revenue"))
+            .whenMatchedPipeline(Property.ofValue(List.of(
+                Map.of("$set", Map.of(
+                    "revenue", Map.of("$add", List.of("$revenue", "$$new.revenue")),
+                    "orders", Map.of("$add", List.of("$orders", "$$new.orders"))
+                ))
+            )))
+            .build();
+    }
+
+    private Integer revenue(String product) {
+        try (MongoClient client = getMongoClient()) {
+            return client.getDatabase(database).getCollection("revenue").find(new Document("_id", product)).first().getInteger("revenue");
+        }
+    }
+}
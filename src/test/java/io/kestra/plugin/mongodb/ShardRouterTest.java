@@ -0,0 +1,226 @@
+package io.kestra.plugin.mongodb;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.bson.BsonDocument;
+import org.bson.BsonDouble;
+import org.bson.BsonInt32;
+import org.bson.BsonInt64;
+import org.bson.BsonMaxKey;
+import org.bson.BsonMinKey;
+import org.bson.BsonNull;
+import org.bson.BsonString;
+import org.bson.conversions.Bson;
+import org.junit.jupiter.api.Test;
+
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.ServerAddress;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteInsert;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.bulk.BulkWriteUpsert;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.InsertOneModel;
+import com.mongodb.client.model.ReplaceOneModel;
+import com.mongodb.client.model.ReplaceOptions;
+import com.mongodb.client.model.UpdateManyModel;
+import com.mongodb.client.model.WriteModel;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ShardRouterTest {
+    @Test
+    void lane() {
+        // [MinKey, 100) on shard0, [100, "a") on shard1, ["a", MaxKey) on shard2
+        ShardRouter router = new ShardRouter(List.of("k"), () -> chunks(
+            new BsonDocument("k", new BsonMinKey()), "shard0",
+            new BsonDocument("k", new BsonInt32(100)), "shard1",
+            new BsonDocument("k", new BsonString("a")), "shard2"
+        ));
+
+        assertThat(router.shards(), contains("shard0", "shard1", "shard2"));
+        assertThat(router.lanes(), is(4));
+
+        assertThat(router.lane(insert(new BsonDocument("k", new BsonInt32(5)))), is(0));
+        assertThat(router.lane(insert(new BsonDocument("k", new BsonInt32(100)))), is(1));
+        assertThat(router.lane(insert(new BsonDocument("k", new BsonDouble(1e9)))), is(1));
+        assertThat(router.lane(insert(new BsonDocument("k", new BsonString("Z")))), is(1));
+        assertThat(router.lane(insert(new BsonDocument("k", new BsonString("b")))), is(2));
+        // a missing field is stored as null, which sorts before numbers
+        assertThat(router.lane(insert(new BsonDocument("other", new BsonInt32(1000)))), is(0));
+        assertThat(router.lane(new ReplaceOneModel<>(new BsonDocument("k", new BsonString("c")), new BsonDocument())), is(2));
+
+        // a model that can target any shard goes to the last lane
+        assertThat(router.lane(new UpdateManyModel<>(new BsonDocument("other", new BsonInt32(1)), new BsonDocument("$set", new BsonDocument("x", new BsonInt32(1))))), is(3));
+    }
+
+    @Test
+    void compareKeys() {
+        assertThat(ShardRouter.compareKeys(new BsonDocument("k", new BsonInt32(2)), new BsonDocument("k", new BsonInt64(10L))), lessThan(0));
+        assertThat(ShardRouter.compareKeys(new BsonDocument("k", new BsonDouble(2.5)), new BsonDocument("k", new BsonInt32(2))), greaterThan(0));
+        assertThat(ShardRouter.compareKeys(new BsonDocument("k", new BsonInt32(10)), new BsonDocument("k", new BsonInt64(10L))), is(0));
+        assertThat(ShardRouter.compareKeys(new BsonDocument("k", new BsonInt64(Long.MAX_VALUE)), new BsonDocument("k", new BsonString(""))), lessThan(0));
+        assertThat(ShardRouter.compareKeys(new BsonDocument("k", BsonNull.VALUE), new BsonDocument("k", new BsonInt32(Integer.MIN_VALUE))), lessThan(0));
+        assertThat(ShardRouter.compareKeys(new BsonDocument("k", new BsonMinKey()), new BsonDocument("k", BsonNull.VALUE)), lessThan(0));
+
+        // compound keys compare field by field
+        BsonDocument low = new BsonDocument("region", new BsonString("eu")).append("id", new BsonInt32(99));
+        BsonDocument high = new BsonDocument("region", new BsonString("us")).append("id", new BsonInt32(1));
+        assertThat(ShardRouter.compareKeys(low, high), lessThan(0));
+        assertThat(ShardRouter.compareKeys(high, new BsonDocument("region", new BsonString("us"))), greaterThan(0));
+    }
+
+    @Test
+    void moves() {
+        List<BsonDocument> points = List.of(
+            new BsonDocument("k", new BsonInt32(100)),
+            new BsonDocument("k", new BsonInt32(200)),
+            new BsonDocument("k", new BsonInt32(300))
+        );
+
+        // right after the split, every chunk is still on the primary shard except [100, 200) already balanced to shard1
+        NavigableMap<BsonDocument, String> owners = chunks(
+            new BsonDocument("k", new BsonMinKey()), "shard0",
+            points.get(0), "shard1",
+            points.get(1), "shard0",
+            points.get(2), "shard0"
+        );
+
+        List<ShardRouter.Move> moves = ShardRouter.moves(points, List.of("shard0", "shard1"), owners);
+
+        // only [300, MaxKey) isn't on its round-robin shard yet
+        assertThat(moves, contains(
+            new ShardRouter.Move(points.get(2), new BsonDocument("k", new BsonMaxKey()), "shard1")
+        ));
+
+        owners.put(points.get(0), "shard0");
+        assertThat(ShardRouter.moves(points, List.of("shard0", "shard1"), owners), contains(
+            new ShardRouter.Move(points.get(0), points.get(1), "shard1"),
+            new ShardRouter.Move(points.get(2), new BsonDocument("k", new BsonMaxKey()), "shard1")
+        ));
+    }
+
+    @Test
+    void movesSingleShard() {
+        List<BsonDocument> points = List.of(new BsonDocument("k", new BsonInt32(100)));
+
+        NavigableMap<BsonDocument, String> owners = chunks(
+            new BsonDocument("k", new BsonMinKey()), "shard0",
+            points.getFirst(), "shard0"
+        );
+
+        assertThat(ShardRouter.moves(points, List.of("shard0"), owners), is(List.of()));
+    }
+
+    @Test
+    void writerRetriesStaleConfig() {
+        AtomicInteger refreshes = new AtomicInteger();
+        ShardRouter router = new ShardRouter(List.of("_id"), () -> {
+            refreshes.incrementAndGet();
+            return chunks(new BsonDocument("_id", new BsonMinKey()), "shard0");
+        });
+
+        List<WriteModel<Bson>> models = List.of(
+            insert(new BsonDocument("_id", new BsonInt32(0))),
+            insert(new BsonDocument("_id", new BsonInt32(1))),
+            upsert(2),
+            upsert(3)
+        );
+
+        List<Integer> sizes = new ArrayList<>();
+        MongoCollection<Bson> collection = collection(batch -> {
+            sizes.add(batch.size());
+
+            if (sizes.size() == 1) {
+                // the first insert was applied, the second one hit a shard with a stale chunk map
+                throw new MongoBulkWriteException(
+                    BulkWriteResult.acknowledged(1, 0, 0, 0, List.of(), List.of(new BulkWriteInsert(0, new BsonInt32(0)))),
+                    List.of(new BulkWriteError(ShardRouter.STALE_CONFIG, "StaleConfig", new BsonDocument(), 1)),
+                    null,
+                    new ServerAddress(),
+                    Set.of()
+                );
+            }
+
+            // indexes are relative to the retried remainder
+            return BulkWriteResult.acknowledged(
+                1, 0, 0, 0,
+                List.of(new BulkWriteUpsert(1, new BsonInt32(2)), new BulkWriteUpsert(2, new BsonInt32(3))),
+                List.of(new BulkWriteInsert(0, new BsonInt32(1)))
+            );
+        });
+
+        BulkWriteResult result = router.writer(collection).apply(models);
+
+        assertThat(sizes, contains(4, 3));
+        assertThat(refreshes.get(), is(2));
+        assertThat(result.getInsertedCount(), is(2));
+        assertThat(result.getInserts().stream().map(BulkWriteInsert::getIndex).toList(), contains(0, 1));
+        assertThat(result.getUpserts().stream().map(BulkWriteUpsert::getIndex).toList(), contains(2, 3));
+        assertThat(result.getUpserts().getLast().getId(), is(new BsonInt32(3)));
+    }
+
+    @Test
+    void writerRethrowsOtherErrors() {
+        ShardRouter router = new ShardRouter(List.of("_id"), () -> chunks(new BsonDocument("_id", new BsonMinKey()), "shard0"));
+
+        MongoCollection<Bson> collection = collection(batch -> {
+            throw new MongoBulkWriteException(
+                BulkWriteResult.acknowledged(0, 0, 0, 0, List.of(), List.of()),
+                List.of(new BulkWriteError(11000, "E11000 duplicate key", new BsonDocument(), 0)),
+                null,
+                new ServerAddress(),
+                Set.of()
+            );
+        });
+
+        assertThrows(MongoBulkWriteException.class, () -> router.writer(collection).apply(List.of(insert(new BsonDocument("_id", new BsonInt32(0))))));
+    }
+
+    private static NavigableMap<BsonDocument, String> chunks(Object... minAndShards) {
+        NavigableMap<BsonDocument, String> chunks = new TreeMap<>(ShardRouter::compareKeys);
+        for (int i = 0; i < minAndShards.length; i += 2) {
+            chunks.put((BsonDocument) minAndShards[i], (String) minAndShards[i + 1]);
+        }
+
+        return chunks;
+    }
+
+    private static WriteModel<Bson> insert(BsonDocument document) {
+        return new InsertOneModel<>(document);
+    }
+
+    private static WriteModel<Bson> upsert(int id) {
+        return new ReplaceOneModel<>(new BsonDocument("_id", new BsonInt32(id)), new BsonDocument("_id", new BsonInt32(id)), new ReplaceOptions().upsert(true));
+    }
+
+    /**
+     * Collection stub only answering {@code bulkWrite(List)}.
+     */
+    @SuppressWarnings("unchecked")
+    private static MongoCollection<Bson> collection(Function<List<WriteModel<Bson>>, BulkWriteResult> bulkWrite) {
+        return (MongoCollection<Bson>) Proxy.newProxyInstance(
+            MongoCollection.class.getClassLoader(),
+            new Class<?>[]{MongoCollection.class},
+            (proxy, method, args) -> {
+                if (method.getName().equals("bulkWrite") && args != null && args.length == 1) {
+                    return bulkWrite.apply((List<WriteModel<Bson>>) args[0]);
+                }
+
+                throw new UnsupportedOperationException(method.getName());
+            }
+        );
+    }
+}
@@ -1,9 +1,12 @@
 package io.kestra.plugin.mongodb;
 
+import java.time.Duration;
 import java.time.Instant;
+import java.time.ZonedDateTime;
 import java.util.*;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
 
 import io.kestra.core.junit.annotations.EvaluateTrigger;
 import org.bson.Document;
@@ -16,10 +19,13 @@ import com.mongodb.client.MongoCollection;
 import com.mongodb.client.MongoDatabase;
 
 import io.kestra.core.junit.annotations.KestraTest;
+import io.kestra.core.models.conditions.ConditionContext;
 import io.kestra.core.models.executions.Execution;
+import io.kestra.core.models.property.Property;
 import io.kestra.core.queues.QueueFactoryInterface;
 import io.kestra.core.queues.QueueInterface;
 import io.kestra.core.repositories.LocalFlowRepositoryLoader;
+import io.kestra.core.utils.IdUtils;
 import io.kestra.core.utils.TestsUtils;
 import jakarta.inject.Inject;
 import jakarta.inject.Named;
@@ -96,4 +102,147 @@ public class TriggerTest extends MongoDbContainer {
 
         assertThat(rows.get(1).get("_id"), is(315));
     }
-}
+
+    @SuppressWarnings("unchecked")
+    @Test
+    void watermark() throws Exception {
+        Trigger trigger = Trigger.builder()
+            .id("watermark_" + IdUtils.create())
+            .type(Trigger.class.getName())
+            .connection(MongoDbConnection.builder().uri(Property.ofValue(connectionUri)).build())
+            .database(Property.ofValue("samples"))
+            .collection(Property.ofValue("books"))
+            .filter(Map.of("pageCount", Map.of("$gt", 50)))
+            .watermarkField(Property.ofValue("_id"))
+            .limit(Property.ofValue(200))
+            .build();
+
+        Map.Entry<ConditionContext, io.kestra.core.models.triggers.Trigger> context = TestsUtils.mockTrigger(runContextFactory, trigger);
+
+        Optional<Execution> execution = trigger.evaluate(context.getKey(), context.getValue());
+        assertThat(execution.isPresent(), is(true));
+        var rows = (List<Map<String, Object>>) execution.get().getTrigger().getVariables().get("rows");
+        assertThat(rows.size(), is(200));
+        assertThat(rows.getFirst().get("_id"), is(70));
+
+        execution = trigger.evaluate(context.getKey(), context.getValue());
+        assertThat(execution.isPresent(), is(true));
+        rows = (List<Map<String, Object>>) execution.get().getTrigger().getVariables().get("rows");
+        assertThat(rows.size(), is(65));
+
+        assertThat(trigger.evaluate(context.getKey(), context.getValue()).isPresent(), is(false));
+
+        try (MongoClient client = getMongoClient()) {
+            client.getDatabase("samples").getCollection("books")
+                .insertOne(new Document("_id", 5000).append("title", "New book").append("pageCount", 120));
+        }
+
+        execution = trigger.evaluate(context.getKey(), context.getValue());
+        assertThat(execution.isPresent(), is(true));
+        rows = (List<Map<String, Object>>) execution.get().getTrigger().getVariables().get("rows");
+        assertThat(rows.size(), is(1));
+        assertThat(rows.getFirst().get("_id"), is(5000));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    void nestedWatermarkTies() throws Exception {
+        String database = "ut_" + IdUtils.create().toLowerCase(Locale.ROOT);
+
+        try (MongoClient client = getMongoClient()) {
+            client.getDatabase(database).getCollection("events").insertMany(
+                IntStream.range(0, 5).mapToObj(i -> new Document("_id", i).append("meta", new Document("day", 1))).toList()
+            );
+        }
+
+        Trigger trigger = Trigger.builder()
+            .id("nested_" + IdUtils.create())
+            .type(Trigger.class.getName())
+            .connection(MongoDbConnection.builder().uri(Property.ofValue(connectionUri)).build())
+            .database(Property.ofValue(database))
+            .collection(Property.ofValue("events"))
+            .watermarkField(Property.ofValue("meta.day"))
+            .limit(Property.ofValue(3))
+            .build();
+
+        Map.Entry<ConditionContext, io.kestra.core.models.triggers.Trigger> context = TestsUtils.mockTrigger(runContextFactory, trigger);
+
+        // every document shares the watermark value, they are paged by _id
+        Optional<Execution> execution = trigger.evaluate(context.getKey(), context.getValue());
+        assertThat(execution.isPresent(), is(true));
+        var rows = (List<Map<String, Object>>) execution.get().getTrigger().getVariables().get("rows");
+        assertThat(rows.stream().map(row -> row.get("_id")).toList(), is(List.of(0, 1, 2)));
+
+        execution = trigger.evaluate(context.getKey(), context.getValue());
+        rows = (List<Map<String, Object>>) execution.get().getTrigger().getVariables().get("rows");
+        assertThat(rows.stream().map(row -> row.get("_id")).toList(), is(List.of(3, 4)));
+
+        assertThat(trigger.evaluate(context.getKey(), context.getValue()).isPresent(), is(false));
+
+        // written after the poll with the same watermark value
+        try (MongoClient client = getMongoClient()) {
+            client.getDatabase(database).getCollection("events").insertOne(new Document("_id", 5).append("meta", new Document("day", 1)));
+        }
+
+        execution = trigger.evaluate(context.getKey(), context.getValue());
+        assertThat(execution.isPresent(), is(true));
+        rows = (List<Map<String, Object>>) execution.get().getTrigger().getVariables().get("rows");
+        assertThat(rows.stream().map(row -> row.get("_id")).toList(), is(List.of(5)));
+    }
+
+    @Test
+    void adaptiveInterval() throws Exception {
+        Trigger trigger = Trigger.builder()
+            .id("adaptive_" + IdUtils.create())
+            .type(Trigger.class.getName())
+            .connection(MongoDbConnection.builder().uri(Property.ofValue(connectionUri)).build())
+            .database(Property.ofValue("samples"))
+            .collection(Property.ofValue("books"))
+            .filter(Map.of("pageCount", Map.of("$gt", 100000)))
+            .interval(Duration.ofSeconds(10))
+            .maxInterval(Duration.ofSeconds(30))
+            .build();
+
+        Map.Entry<ConditionContext, io.kestra.core.models.triggers.Trigger> context = TestsUtils.mockTrigger(runContextFactory, trigger);
+
+        assertThat(trigger.evaluate(context.getKey(), context.getValue()).isPresent(), is(false));
+        ZonedDateTime next = trigger.nextEvaluationDate(context.getKey(), Optional.of(context.getValue()));
+        assertThat(next.isAfter(ZonedDateTime.now().plusSeconds(15)), is(true));
+
+        assertThat(trigger.evaluate(context.getKey(), context.getValue()).isPresent(), is(false));
+        next = trigger.nextEvaluationDate(context.getKey(), Optional.of(context.getValue()));
+        assertThat(next.isAfter(ZonedDateTime.now().plusSeconds(25)), is(true));
+        assertThat(next.isBefore(ZonedDateTime.now().plusSeconds(31)), is(true));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    void maxRecordsPerExecution() throws Exception {
+        Trigger trigger = Trigger.builder()
+            .id("capped_" + IdUtils.create())
+            .type(Trigger.class.getName())
+            .connection(MongoDbConnection.builder().uri(Property.ofValue(connectionUri)).build())
+            .database(Property.ofValue("samples"))
+            .collection(Property.ofValue("books"))
+            .filter(Map.of("pageCount", Map.of("$gt", 50)))
+            .maxRecordsPerExecution(Property.ofValue(100))
+            .build();
+
+        Map.Entry<ConditionContext, io.kestra.core.models.triggers.Trigger> context = TestsUtils.mockTrigger(runContextFactory, trigger);
+
+        List<Integer> sizes = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            Optional<Execution> execution = trigger.evaluate(context.getKey(), context.getValue());
+            assertThat(execution.isPresent(), is(true));
+            sizes.add(((List<Map<String, Object>>) execution.get().getTrigger().getVariables().get("rows")).size());
+
+            if (i < 2) {
+                // more records are pending, the next poll is scheduled right away
+                assertThat(trigger.nextEvaluationDate(context.getKey(), Optional.of(context.getValue())).isBefore(ZonedDateTime.now().plusSeconds(2)), is(true));
+            }
+        }
+
+        // three bounded executions, then a new sweep starts over
+        assertThat(sizes, is(List.of(100, 100, 65, 100)));
+    }
+}
\ No newline at end of file